@@ -0,0 +1,115 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import static org.mockito.Mockito.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.openclassrooms.starterjwt.payload.request.LoginRequest;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.jwt.JwtFailures;
+import com.openclassrooms.starterjwt.security.jwt.JwtUtils;
+import com.openclassrooms.starterjwt.security.ratelimit.AuthRateLimits;
+import com.openclassrooms.starterjwt.security.services.BoundedPasswordEncoder;
+import com.openclassrooms.starterjwt.security.services.PasswordRehasher;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import com.openclassrooms.starterjwt.services.RefreshTokenService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * POST /api/auth/login end to end in memory: rate limits, DaoAuthenticationProvider with BCrypt
+ * (cost 10, as the test data) on the bounded pool, token signing and response assembly.
+ * The single user read of a login is a stub, so the figures are the CPU cost of the auth stack
+ * on top of one SELECT and one refresh token INSERT.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class AuthControllerLoginBenchmark {
+  private BoundedPasswordEncoder passwordEncoder;
+  private AuthController authController;
+  private LoginRequest loginRequest;
+
+  @Setup
+  public void setUp() {
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    // Calibration pinned to cost 10, the cost of the stored hash: no rehash on login
+    passwordEncoder = new BoundedPasswordEncoder(4, 64, 16, 0, 10, 10, false, meterRegistry);
+
+    UserDetailsImpl userDetails = UserDetailsImpl.builder()
+        .id(2L)
+        .username("hugo@studio.com")
+        .firstName("Hugo")
+        .lastName("Lebolide")
+        .admin(false)
+        .password(new BCryptPasswordEncoder(10).encode("password"))
+        .build();
+
+    DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+    provider.setUserDetailsService(email -> userDetails);
+    provider.setPasswordEncoder(passwordEncoder);
+
+    JwtUtils jwtUtils = new JwtUtils(new JwtFailures(meterRegistry, 10000));
+    ReflectionTestUtils.setField(jwtUtils, "jwtSecret", "openclassrooms");
+    ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 900000);
+
+    // Stub only: a recording mock would keep every invocation of the run
+    UserRepository userRepository = mock(UserRepository.class, withSettings().stubOnly());
+    RefreshTokenService refreshTokenService = mock(RefreshTokenService.class, withSettings().stubOnly());
+    when(refreshTokenService.issue(2L)).thenReturn("refresh-token");
+
+    // The registration and logout collaborators are not used by a login
+    authController = new AuthController(
+        new ProviderManager(provider),
+        passwordEncoder,
+        jwtUtils,
+        userRepository,
+        new AuthRateLimits(1000000, 1000000, 1000000, 1000000, 100000, meterRegistry),
+        null,
+        null,
+        refreshTokenService,
+        null,
+        new PasswordRehasher(passwordEncoder, userRepository, 16, meterRegistry));
+
+    loginRequest = new LoginRequest();
+    loginRequest.setEmail("hugo@studio.com");
+    loginRequest.setPassword("password");
+  }
+
+  @TearDown
+  public void tearDown() {
+    passwordEncoder.destroy();
+  }
+
+  @Benchmark
+  public ResponseEntity<?> login() {
+    try {
+      return authController.authenticateUser(loginRequest);
+    } finally {
+      SecurityContextHolder.clearContext();
+    }
+  }
+}
@@ -0,0 +1,150 @@
+package com.openclassrooms.starterjwt.mapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+
+/**
+ * The CPU side of GET /api/session: SessionMapper.toDto(List) and the Jackson serialisation of the
+ * DTO list, for 10, 1k and 100k sessions with 0 to 500 participants each (uniform, fixed seed).
+ * Each size is its own class with the session count as operations per invocation, so the scores
+ * read as ns per session, and "-prof gc" reports gc.alloc.rate.norm as bytes per session.
+ * The JSON is streamed to a discarding OutputStream, like a response body, and not buffered.
+ */
+public class SessionMapperBenchmark {
+
+  @State(Scope.Benchmark)
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  @Warmup(iterations = 3, time = 2)
+  @Measurement(iterations = 5, time = 2)
+  @Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+  public abstract static class SessionList {
+    private static final int MAX_USERS = 500;
+
+    private final int size;
+
+    private SessionMapper sessionMapper;
+    private ObjectMapper objectMapper;
+    private List<Session> sessions;
+    private List<SessionDto> dtos;
+
+    protected SessionList(int size) {
+      this.size = size;
+    }
+
+    @Setup
+    public void setUp() {
+      sessionMapper = new SessionMapperImpl();
+      // Same defaults as the ObjectMapper of Spring Boot
+      objectMapper = Jackson2ObjectMapperBuilder.json()
+          .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+          .build();
+
+      // Loaded entities share their User and Teacher instances, as in one persistence context
+      List<User> users = new ArrayList<>(MAX_USERS);
+      for (long id = 1; id <= MAX_USERS; id++) {
+        users.add(new User(id, "user" + id + "@studio.com", "Lastname", "Firstname", "password", false,
+            LocalDateTime.now(), LocalDateTime.now()));
+      }
+      Teacher[] teachers = {
+          Teacher.builder().id(1L).firstName("Margot").lastName("DELAHAYE").build(),
+          Teacher.builder().id(2L).firstName("Hélène").lastName("THIERCELIN").build()
+      };
+
+      Random random = new Random(42);
+      sessions = new ArrayList<>(size);
+      for (long id = 1; id <= size; id++) {
+        sessions.add(Session.builder()
+            .id(id)
+            .name("Session " + id)
+            .date(new Date())
+            .description("A yoga session for every level, focused on breathing and posture.")
+            .teacher(teachers[(int) (id % teachers.length)])
+            .users(new ArrayList<>(users.subList(0, random.nextInt(MAX_USERS + 1))))
+            .createdAt(LocalDateTime.now())
+            .updatedAt(LocalDateTime.now())
+            .build());
+      }
+      dtos = sessionMapper.toDto(sessions);
+    }
+
+    @Benchmark
+    public List<SessionDto> toDto() {
+      return sessionMapper.toDto(sessions);
+    }
+
+    @Benchmark
+    public void serialize() throws IOException {
+      objectMapper.writeValue(DiscardingOutputStream.INSTANCE, dtos);
+    }
+
+    @Benchmark
+    public void toDtoAndSerialize() throws IOException {
+      objectMapper.writeValue(DiscardingOutputStream.INSTANCE, sessionMapper.toDto(sessions));
+    }
+  }
+
+  @OperationsPerInvocation(10)
+  public static class Sessions10 extends SessionList {
+    public Sessions10() {
+      super(10);
+    }
+  }
+
+  @OperationsPerInvocation(1_000)
+  public static class Sessions1k extends SessionList {
+    public Sessions1k() {
+      super(1_000);
+    }
+  }
+
+  @OperationsPerInvocation(100_000)
+  public static class Sessions100k extends SessionList {
+    public Sessions100k() {
+      super(100_000);
+    }
+  }
+
+  private static final class DiscardingOutputStream extends OutputStream {
+    static final DiscardingOutputStream INSTANCE = new DiscardingOutputStream();
+
+    @Override
+    public void write(int b) {
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+    }
+
+    @Override
+    public void close() {
+      // writeValue closes its target: the shared instance must stay usable
+    }
+  }
+}
@@ -0,0 +1,91 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.InsufficientAuthenticationException;
+import org.springframework.security.core.AuthenticationException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Rejected requests per second: the former entry point (ObjectMapper and HashMap per call,
+ * ERROR log per call) against the current one (shared JsonFactory, sampled log).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class AuthEntryPointJwtBenchmark {
+  private static final Logger logger = LoggerFactory.getLogger(AuthEntryPointJwtBenchmark.class);
+
+  private final AuthenticationException exception =
+      new InsufficientAuthenticationException("Full authentication is required to access this resource");
+
+  private AuthEntryPointJwt entryPoint;
+  private MockHttpServletRequest request;
+
+  @Setup
+  public void setUp() {
+    entryPoint = new AuthEntryPointJwt(10000);
+    request = new MockHttpServletRequest("GET", "/api/session");
+    request.setServletPath("/api/session");
+  }
+
+  @Benchmark
+  public MockHttpServletResponse before() throws IOException {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    legacyCommence(request, response, exception);
+    return response;
+  }
+
+  @Benchmark
+  public MockHttpServletResponse after() throws IOException, ServletException {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    entryPoint.commence(request, response, exception);
+    return response;
+  }
+
+  // AuthEntryPointJwt.commence as it was before the shared writer
+  private static void legacyCommence(HttpServletRequest request, HttpServletResponse response,
+      AuthenticationException authException) throws IOException {
+    logger.error("Unauthorized error: {}", authException.getMessage());
+
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+
+    final Map<String, Object> body = new HashMap<>();
+    body.put("status", HttpServletResponse.SC_UNAUTHORIZED);
+    body.put("error", "Unauthorized");
+    body.put("message", authException.getMessage());
+    body.put("path", request.getServletPath());
+
+    final ObjectMapper mapper = new ObjectMapper();
+    mapper.writeValue(response.getOutputStream(), body);
+  }
+}
@@ -0,0 +1,112 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.ServletException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.openclassrooms.starterjwt.repository.RevokedTokenRepository;
+import com.openclassrooms.starterjwt.security.services.TokenRevocations;
+import com.openclassrooms.starterjwt.security.services.UserDetailsCache;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * One authenticated request through AuthTokenFilter, with the real caches and an in-memory
+ * revocation check. The user lookup is a stub: with statelessPrincipal=false the principal comes
+ * from UserDetailsCache, which is warm after the first request, as in production.
+ * "anonymous" measures a request without Authorization header.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class AuthTokenFilterBenchmark {
+  @Param({"true", "false"})
+  public boolean statelessPrincipal;
+
+  private AuthTokenFilter filter;
+  private MockHttpServletRequest authenticatedRequest;
+  private MockHttpServletRequest anonymousRequest;
+
+  @Setup
+  public void setUp() {
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    UserDetailsImpl userDetails = UserDetailsImpl.builder()
+        .id(2L)
+        .username("hugo@studio.com")
+        .firstName("Hugo")
+        .lastName("Lebolide")
+        .admin(false)
+        .password("$2a$10$Un2hnRoAkhu9YVDzFgWeI.zPv1K/DsrfWLitTJ.2gIYxWVaUOniIG")
+        .build();
+
+    JwtFailures jwtFailures = new JwtFailures(meterRegistry, 10000);
+    JwtUtils jwtUtils = new JwtUtils(jwtFailures);
+    ReflectionTestUtils.setField(jwtUtils, "jwtSecret", "openclassrooms");
+    ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 900000);
+
+    // Stub only: a recording mock would keep every invocation of the run
+    UserDetailsServiceImpl userDetailsService = mock(UserDetailsServiceImpl.class, withSettings().stubOnly());
+    when(userDetailsService.loadUserByUsername("hugo@studio.com")).thenReturn(userDetails);
+
+    filter = new AuthTokenFilter();
+    ReflectionTestUtils.setField(filter, "jwtUtils", jwtUtils);
+    ReflectionTestUtils.setField(filter, "verifiedTokenCache", new VerifiedTokenCache(jwtUtils, 10000, 900000, meterRegistry));
+    ReflectionTestUtils.setField(filter, "userDetailsService", userDetailsService);
+    ReflectionTestUtils.setField(filter, "userDetailsCache", new UserDetailsCache(10000, 60000, meterRegistry));
+    ReflectionTestUtils.setField(filter, "tokenRevocations",
+        new TokenRevocations(mock(RevokedTokenRepository.class, withSettings().stubOnly()), 900000, 10000, 0.01));
+    ReflectionTestUtils.setField(filter, "jwtFailures", jwtFailures);
+    ReflectionTestUtils.setField(filter, "statelessPrincipal", statelessPrincipal);
+
+    authenticatedRequest = new MockHttpServletRequest("GET", "/api/session");
+    authenticatedRequest.addHeader("Authorization", "Bearer " + jwtUtils.generateJwtToken(userDetails));
+    anonymousRequest = new MockHttpServletRequest("GET", "/api/session");
+  }
+
+  @Benchmark
+  public MockHttpServletResponse authenticated() throws ServletException, IOException {
+    return filter(authenticatedRequest);
+  }
+
+  @Benchmark
+  public MockHttpServletResponse anonymous() throws ServletException, IOException {
+    return filter(anonymousRequest);
+  }
+
+  private MockHttpServletResponse filter(MockHttpServletRequest request) throws ServletException, IOException {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    try {
+      filter.doFilterInternal(request, response, new MockFilterChain());
+    } finally {
+      SecurityContextHolder.clearContext();
+    }
+    return response;
+  }
+}
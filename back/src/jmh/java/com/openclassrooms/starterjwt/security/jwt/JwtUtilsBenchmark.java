@@ -0,0 +1,79 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Signing and verifying access tokens (HS512, with the claims the filter rebuilds the principal from).
+ * The tampered token goes through the failure accounting of JwtFailures.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class JwtUtilsBenchmark {
+  private JwtUtils jwtUtils;
+  private Authentication authentication;
+  private String token;
+  private String tamperedToken;
+
+  @Setup
+  public void setUp() {
+    jwtUtils = new JwtUtils(new JwtFailures(new SimpleMeterRegistry(), 10000));
+    ReflectionTestUtils.setField(jwtUtils, "jwtSecret", "openclassrooms");
+    ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 900000);
+
+    UserDetailsImpl userDetails = UserDetailsImpl.builder()
+        .id(2L)
+        .username("hugo@studio.com")
+        .firstName("Hugo")
+        .lastName("Lebolide")
+        .admin(false)
+        .build();
+    authentication = new UsernamePasswordAuthenticationToken(userDetails, null);
+
+    token = jwtUtils.generateJwtToken(authentication);
+    tamperedToken = token.substring(0, token.length() - 4) + "AAAA";
+  }
+
+  @Benchmark
+  public String generateJwtToken() {
+    return jwtUtils.generateJwtToken(authentication);
+  }
+
+  @Benchmark
+  public boolean validateJwtToken() {
+    return jwtUtils.validateJwtToken(token);
+  }
+
+  @Benchmark
+  public boolean validateTamperedJwtToken() {
+    return jwtUtils.validateJwtToken(tamperedToken);
+  }
+
+  @Benchmark
+  public String getUserNameFromJwtToken() {
+    return jwtUtils.getUserNameFromJwtToken(token);
+  }
+}
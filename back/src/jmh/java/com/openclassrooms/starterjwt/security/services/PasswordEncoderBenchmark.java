@@ -0,0 +1,67 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * BCrypt encode and match per cost, directly and through the bounded hashing pool of
+ * BoundedPasswordEncoder (4 workers, as in application.properties) to show the hand-off overhead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class PasswordEncoderBenchmark {
+  @Param({"10", "12"})
+  public int cost;
+
+  private BCryptPasswordEncoder bcrypt;
+  private BoundedPasswordEncoder bounded;
+  private String hash;
+
+  @Setup
+  public void setUp() {
+    bcrypt = new BCryptPasswordEncoder(cost);
+    bounded = new BoundedPasswordEncoder(bcrypt, new BCryptCalibration(cost, 0), false, 4, 64, 16, new SimpleMeterRegistry());
+    hash = bcrypt.encode("password");
+  }
+
+  @TearDown
+  public void tearDown() {
+    bounded.destroy();
+  }
+
+  @Benchmark
+  public String encode() {
+    return bcrypt.encode("password");
+  }
+
+  @Benchmark
+  public boolean matches() {
+    return bcrypt.matches("password", hash);
+  }
+
+  @Benchmark
+  public boolean boundedMatches() {
+    return bounded.matches("password", hash);
+  }
+}
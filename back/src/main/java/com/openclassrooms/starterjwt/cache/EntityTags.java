@@ -0,0 +1,23 @@
+package com.openclassrooms.starterjwt.cache;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Strong ETags built from in-memory version counters. The counters restart with the
+ * application, so each tag also carries an id of this run: a tag issued before a restart,
+ * or by another instance, never matches.
+ * This assumes a single instance: a counter only moves on the writes this instance handles,
+ * so behind a load balancer a write served elsewhere leaves the tag unchanged here and
+ * clients keep getting 304 for stale data. Several instances need a shared version
+ * (a database column or a distributed counter) instead.
+ */
+public final class EntityTags {
+    private static final String INSTANCE_ID = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+
+    private EntityTags() {
+    }
+
+    public static String of(String name, long version) {
+        return "\"" + name + "-" + INSTANCE_ID + "-" + version + "\"";
+    }
+}
@@ -0,0 +1,91 @@
+package com.openclassrooms.starterjwt.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Bounded in-process cache of session snapshots, keyed by session id.
+ * Hits, misses, evictions and size are published under the "sessions" cache name,
+ * explicit invalidations under sessions.cache.invalidations.
+ * Each invalidation also moves the version that the session ETags are built from.
+ * That version is local to this instance (see {@link EntityTags}): a write handled by another
+ * instance neither evicts the snapshot nor changes the tag here.
+ */
+@Component
+public class SessionCache {
+    static final String CACHE_NAME = "sessions";
+
+    private final Cache<Long, SessionSnapshot> cache;
+
+    private final Counter invalidations;
+
+    private final AtomicLong version = new AtomicLong();
+
+    public SessionCache(@Value("${oc.app.session.cacheMaxSize}") long maxSize,
+                        @Value("${oc.app.session.cacheTtlMs}") long ttlMs,
+                        MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlMs, TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+        this.invalidations = Counter.builder("sessions.cache.invalidations")
+                .description("Sessions dropped from the cache because they were written")
+                .register(meterRegistry);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, this.cache, CACHE_NAME);
+    }
+
+    /**
+     * Returns the cached snapshot or loads it. A null result (unknown session) is not cached.
+     */
+    public SessionSnapshot get(Long id, Function<Long, SessionSnapshot> loader) {
+        return this.cache.get(id, loader);
+    }
+
+    /**
+     * Drops the session now and, when called inside a transaction, once more after it completes:
+     * a concurrent read could otherwise cache the state preceding the commit (or a rolled back one).
+     */
+    public void evict(Long id) {
+        this.invalidate(id);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidate(id);
+                }
+            });
+        }
+    }
+
+    public void clear() {
+        this.cache.invalidateAll();
+    }
+
+    /**
+     * ETag of any session response: it changes whenever a session is written.
+     * Read it before loading the data, so that a concurrent write can only make the tag older than the body.
+     */
+    public String etag() {
+        return EntityTags.of("sessions", this.version.get());
+    }
+
+    private void invalidate(Long id) {
+        this.version.incrementAndGet();
+        this.cache.invalidate(id);
+        this.invalidations.increment();
+    }
+}
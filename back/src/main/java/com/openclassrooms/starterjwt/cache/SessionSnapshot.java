@@ -0,0 +1,64 @@
+package com.openclassrooms.starterjwt.cache;
+
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.User;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Detached, immutable copy of a session as served by the detail endpoint.
+ * It is shared between requests by the {@link SessionCache}, so nothing reachable from it can be modified.
+ */
+@Getter
+@ToString
+public final class SessionSnapshot {
+    private final Long id;
+
+    private final String name;
+
+    private final Date date;
+
+    private final Long teacherId;
+
+    private final String description;
+
+    private final List<Long> users;
+
+    private final LocalDateTime createdAt;
+
+    private final LocalDateTime updatedAt;
+
+    private SessionSnapshot(Session session) {
+        this.id = session.getId();
+        this.name = session.getName();
+        this.date = copy(session.getDate());
+        this.teacherId = session.getTeacher() == null ? null : session.getTeacher().getId();
+        this.description = session.getDescription();
+        this.users = session.getUsers() == null
+                ? Collections.emptyList()
+                : Collections.unmodifiableList(session.getUsers().stream().map(User::getId).collect(Collectors.toList()));
+        this.createdAt = session.getCreatedAt();
+        this.updatedAt = session.getUpdatedAt();
+    }
+
+    public static SessionSnapshot of(Session session) {
+        return new SessionSnapshot(session);
+    }
+
+    /**
+     * A new Date on every call, as java.util.Date is mutable.
+     */
+    public Date getDate() {
+        return copy(this.date);
+    }
+
+    private static Date copy(Date date) {
+        return date == null ? null : new Date(date.getTime());
+    }
+}
@@ -0,0 +1,75 @@
+package com.openclassrooms.starterjwt.cache;
+
+import com.openclassrooms.starterjwt.models.Teacher;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Immutable snapshot of the TEACHERS table. A refresh builds a new catalog and swaps it
+ * as a whole, so readers never see a half-loaded one and never need a lock.
+ * The teachers are shared detached entities: callers must not modify them.
+ */
+@Getter
+public final class TeacherCatalog {
+    private final List<Teacher> teachers;
+
+    private final Map<Long, Teacher> teachersById;
+
+    /**
+     * Incremented each time a refresh finds different content, never on an identical reload.
+     */
+    private final long generation;
+
+    private TeacherCatalog(List<Teacher> teachers, long generation) {
+        Map<Long, Teacher> byId = new HashMap<>();
+        teachers.forEach(teacher -> byId.put(teacher.getId(), teacher));
+
+        this.teachers = Collections.unmodifiableList(new ArrayList<>(teachers));
+        this.teachersById = Collections.unmodifiableMap(byId);
+        this.generation = generation;
+    }
+
+    public static TeacherCatalog of(List<Teacher> teachers) {
+        return new TeacherCatalog(teachers, 1);
+    }
+
+    /**
+     * Returns this catalog when the loaded teachers are the same, otherwise the next generation.
+     */
+    public TeacherCatalog refreshedWith(List<Teacher> loaded) {
+        if (this.hasSameContent(loaded)) {
+            return this;
+        }
+        return new TeacherCatalog(loaded, this.generation + 1);
+    }
+
+    public Teacher get(Long id) {
+        return this.teachersById.get(id);
+    }
+
+    private boolean hasSameContent(List<Teacher> loaded) {
+        if (loaded.size() != this.teachers.size()) {
+            return false;
+        }
+
+        for (int i = 0; i < loaded.size(); i++) {
+            Teacher current = this.teachers.get(i);
+            Teacher other = loaded.get(i);
+            // Teacher equality only compares ids
+            if (!Objects.equals(current.getId(), other.getId())
+                    || !Objects.equals(current.getFirstName(), other.getFirstName())
+                    || !Objects.equals(current.getLastName(), other.getLastName())
+                    || !Objects.equals(current.getCreatedAt(), other.getCreatedAt())
+                    || !Objects.equals(current.getUpdatedAt(), other.getUpdatedAt())) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,42 @@
+package com.openclassrooms.starterjwt.cache;
+
+import com.openclassrooms.starterjwt.services.TeacherService;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * GET /actuator/teachers describes the catalog in use, POST /actuator/teachers reloads it
+ * right away instead of waiting for the next periodic refresh.
+ */
+@Component
+@Endpoint(id = "teachers")
+public class TeacherCatalogEndpoint {
+    private final TeacherService teacherService;
+
+    public TeacherCatalogEndpoint(TeacherService teacherService) {
+        this.teacherService = teacherService;
+    }
+
+    @ReadOperation
+    public Map<String, Object> catalog() {
+        return describe(this.teacherService.getCatalog());
+    }
+
+    @WriteOperation
+    public Map<String, Object> reload() {
+        this.teacherService.reload();
+        return describe(this.teacherService.getCatalog());
+    }
+
+    private static Map<String, Object> describe(TeacherCatalog catalog) {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("generation", catalog.getGeneration());
+        description.put("teachers", catalog.getTeachers().size());
+        return description;
+    }
+}
@@ -2,48 +2,90 @@ package com.openclassrooms.starterjwt.controllers;
 
 import javax.validation.Valid;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.openclassrooms.starterjwt.exception.ServiceUnavailableException;
+import com.openclassrooms.starterjwt.exception.TooManyRequestsException;
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.payload.request.LoginRequest;
+import com.openclassrooms.starterjwt.payload.request.RefreshRequest;
 import com.openclassrooms.starterjwt.payload.request.SignupRequest;
 import com.openclassrooms.starterjwt.payload.response.JwtResponse;
 import com.openclassrooms.starterjwt.payload.response.MessageResponse;
 import com.openclassrooms.starterjwt.repository.UserRepository;
 import com.openclassrooms.starterjwt.security.jwt.JwtUtils;
+import com.openclassrooms.starterjwt.security.jwt.VerifiedTokenCache;
+import com.openclassrooms.starterjwt.security.ratelimit.AuthRateLimits;
+import com.openclassrooms.starterjwt.security.services.PasswordRehasher;
+import com.openclassrooms.starterjwt.security.services.RegisteredEmails;
+import com.openclassrooms.starterjwt.security.services.TokenRevocations;
 import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import com.openclassrooms.starterjwt.services.RefreshTokenService;
+
+import io.jsonwebtoken.Claims;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RestController
 @RequestMapping("/api/auth")
 public class AuthController {
+    private static final String BUSY_MESSAGE = "Error: Authentication is busy, please retry later!";
+
     private final AuthenticationManager authenticationManager;
     private final JwtUtils jwtUtils;
     private final PasswordEncoder passwordEncoder;
     private final UserRepository userRepository;
+    private final AuthRateLimits authRateLimits;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final TokenRevocations tokenRevocations;
+    private final RefreshTokenService refreshTokenService;
+    private final RegisteredEmails registeredEmails;
+    private final PasswordRehasher passwordRehasher;
+
+    @Value("${oc.app.auth.busyRetryAfterSeconds}")
+    private long busyRetryAfterSeconds;
 
     AuthController(AuthenticationManager authenticationManager,
             PasswordEncoder passwordEncoder,
             JwtUtils jwtUtils,
-            UserRepository userRepository) {
+            UserRepository userRepository,
+            AuthRateLimits authRateLimits,
+            VerifiedTokenCache verifiedTokenCache,
+            TokenRevocations tokenRevocations,
+            RefreshTokenService refreshTokenService,
+            RegisteredEmails registeredEmails,
+            PasswordRehasher passwordRehasher) {
         this.authenticationManager = authenticationManager;
         this.jwtUtils = jwtUtils;
         this.passwordEncoder = passwordEncoder;
         this.userRepository = userRepository;
+        this.authRateLimits = authRateLimits;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.tokenRevocations = tokenRevocations;
+        this.refreshTokenService = refreshTokenService;
+        this.registeredEmails = registeredEmails;
+        this.passwordRehasher = passwordRehasher;
     }
 
     @PostMapping("/login")
     public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
+        this.checkRateLimit(loginRequest.getEmail());
 
         Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(loginRequest.getEmail(), loginRequest.getPassword()));
@@ -51,27 +93,36 @@ public class AuthController {
         SecurityContextHolder.getContext().setAuthentication(authentication);
         String jwt = jwtUtils.generateJwtToken(authentication);
         UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        passwordRehasher.rehashIfNeeded(userDetails, loginRequest.getPassword());
+
+        // The principal was loaded by the authentication itself: no second read of the user
+        return ResponseEntity.ok(jwtResponse(jwt, userDetails, refreshTokenService.issue(userDetails.getId())));
+    }
 
-        boolean isAdmin = false;
-        User user = this.userRepository.findByEmail(userDetails.getUsername()).orElse(null);
-        if (user != null) {
-            isAdmin = user.isAdmin();
+    /**
+     * Exchanges a refresh token for a new short-lived access token and the next refresh token.
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@Valid @RequestBody RefreshRequest refreshRequest) {
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(refreshRequest.getRefreshToken());
+        if (rotation == null) {
+            return ResponseEntity
+                    .status(HttpStatus.UNAUTHORIZED)
+                    .body(new MessageResponse("Error: Invalid refresh token!"));
         }
 
-        return ResponseEntity.ok(new JwtResponse(jwt,
-                userDetails.getId(),
-                userDetails.getUsername(),
-                userDetails.getFirstName(),
-                userDetails.getLastName(),
-                isAdmin));
+        UserDetailsImpl userDetails = rotation.getUserDetails();
+        return ResponseEntity.ok(jwtResponse(jwtUtils.generateJwtToken(userDetails), userDetails, rotation.getRefreshToken()));
     }
 
     @PostMapping("/register")
     public ResponseEntity<?> registerUser(@Valid @RequestBody SignupRequest signUpRequest) {
-        if (userRepository.existsByEmail(signUpRequest.getEmail())) {
-            return ResponseEntity
-                    .badRequest()
-                    .body(new MessageResponse("Error: Email is already taken!"));
+        this.checkRateLimit(signUpRequest.getEmail());
+
+        // Most fresh emails are ruled out by the filter, without a query
+        if (registeredEmails.mightBeRegistered(signUpRequest.getEmail())
+                && userRepository.existsByEmail(signUpRequest.getEmail())) {
+            return emailTaken();
         }
 
         // Create new user's account
@@ -81,8 +132,84 @@ public class AuthController {
                 passwordEncoder.encode(signUpRequest.getPassword()),
                 false);
 
-        userRepository.save(user);
+        try {
+            userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent signup with the same email won the unique constraint
+            return emailTaken();
+        }
+        registeredEmails.add(user.getEmail());
 
         return ResponseEntity.ok(new MessageResponse("User registered successfully!"));
     }
+
+    private static ResponseEntity<MessageResponse> emailTaken() {
+        return ResponseEntity
+                .badRequest()
+                .body(new MessageResponse("Error: Email is already taken!"));
+    }
+
+    /**
+     * Revokes the bearer token of the request until it expires, and the refresh token family of the
+     * optional body (every refresh token of the user without one), so the session cannot be refreshed back.
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+            @RequestBody(required = false) RefreshRequest refreshRequest) {
+        Claims claims = null;
+        if (StringUtils.hasText(authorization) && authorization.startsWith("Bearer ")) {
+            claims = this.verifiedTokenCache.verify(authorization.substring(7));
+        }
+        if (claims == null || claims.getId() == null || claims.getExpiration() == null) {
+            return ResponseEntity
+                    .badRequest()
+                    .body(new MessageResponse("Error: No revocable token!"));
+        }
+
+        this.tokenRevocations.revokeToken(claims.getId(), claims.getExpiration());
+
+        UserDetailsImpl userDetails = this.jwtUtils.getUserDetailsFromClaims(claims);
+        if (userDetails != null) {
+            String refreshToken = refreshRequest == null || !StringUtils.hasText(refreshRequest.getRefreshToken())
+                    ? null
+                    : refreshRequest.getRefreshToken();
+            this.refreshTokenService.revoke(userDetails.getId(), refreshToken);
+        }
+
+        return ResponseEntity.ok(new MessageResponse("User logged out successfully!"));
+    }
+
+    private static JwtResponse jwtResponse(String jwt, UserDetailsImpl userDetails, String refreshToken) {
+        JwtResponse response = new JwtResponse(jwt,
+                userDetails.getId(),
+                userDetails.getUsername(),
+                userDetails.getFirstName(),
+                userDetails.getLastName(),
+                Boolean.TRUE.equals(userDetails.getAdmin()));
+        response.setRefreshToken(refreshToken);
+        return response;
+    }
+
+    private void checkRateLimit(String email) {
+        long retryAfter = this.authRateLimits.tryAcquireForEmail(email);
+        if (retryAfter > 0) {
+            throw new TooManyRequestsException(retryAfter);
+        }
+    }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<MessageResponse> handleTooManyRequests(TooManyRequestsException e) {
+        return ResponseEntity
+                .status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(new MessageResponse(TooManyRequestsException.MESSAGE));
+    }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<MessageResponse> handleBusy(ServiceUnavailableException e) {
+        return ResponseEntity
+                .status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(busyRetryAfterSeconds))
+                .body(new MessageResponse(BUSY_MESSAGE));
+    }
 }
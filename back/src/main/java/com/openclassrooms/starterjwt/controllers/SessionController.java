@@ -1,22 +1,36 @@
 package com.openclassrooms.starterjwt.controllers;
 
 
+import com.openclassrooms.starterjwt.cache.SessionSnapshot;
 import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.dto.SessionSummaryDto;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.mapper.SessionMapper;
 import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.pagination.KeysetPage;
+import com.openclassrooms.starterjwt.payload.response.MessageResponse;
+import com.openclassrooms.starterjwt.repository.SessionFilter;
 import com.openclassrooms.starterjwt.services.SessionService;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import javax.validation.Valid;
 import java.util.List;
 
-@CrossOrigin(origins = "*", maxAge = 3600)
+@CrossOrigin(origins = "*", maxAge = 3600, exposedHeaders = {SessionController.NEXT_CURSOR_HEADER, HttpHeaders.ETAG})
 @RestController
 @RequestMapping("/api/session")
 @Log4j2
 public class SessionController {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    // Kept by the browser but revalidated with If-None-Match on every use
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
     private final SessionMapper sessionMapper;
     private final SessionService sessionService;
 
@@ -27,36 +41,99 @@ public class SessionController {
         this.sessionService = sessionService;
     }
 
+    /**
+     * Session reads carry an ETag: a request whose If-None-Match still matches gets a 304
+     * before anything is loaded. They are sent with {@code no-cache, private} rather than the
+     * default {@code no-store}, otherwise the browser would never keep them nor revalidate.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<?> findById(@PathVariable("id") String id) {
+    public ResponseEntity<?> findById(@PathVariable("id") String id, WebRequest request) {
         try {
-            Session session = this.sessionService.getById(Long.valueOf(id));
+            Long sessionId = Long.valueOf(id);
+            if (request.checkNotModified(this.sessionService.etag())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+            }
+
+            SessionSnapshot session = this.sessionService.getSnapshotById(sessionId);
 
             if (session == null) {
                 return ResponseEntity.notFound().build();
             }
 
-            return ResponseEntity.ok().body(this.sessionMapper.toDto(session));
+            return ResponseEntity.ok().cacheControl(REVALIDATE).body(this.sessionMapper.toDto(session));
         } catch (NumberFormatException e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
+    /**
+     * Lists sessions one page at a time. The cursor of the next page, if any, is sent
+     * in the {@value #NEXT_CURSOR_HEADER} header and goes back in the {@code after} parameter.
+     * The {@code from}, {@code to} and {@code teacherId} filters apply to every page.
+     * {@code unpaged=true} returns every session in one response and takes no filter.
+     */
     @GetMapping()
-    public ResponseEntity<?> findAll() {
-        List<Session> sessions = this.sessionService.findAll();
+    public ResponseEntity<?> findAll(SessionFilter filter,
+                                     @RequestParam(value = "limit", required = false) Integer limit,
+                                     @RequestParam(value = "after", required = false) String after,
+                                     @RequestParam(value = "unpaged", defaultValue = "false") boolean unpaged,
+                                     WebRequest request) {
+        if (unpaged && !filter.isEmpty()) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: Filters require paging!"));
+        }
+        if (request.checkNotModified(this.sessionService.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+
+        if (unpaged) {
+            List<Session> sessions = this.sessionService.findAll();
+
+            return ResponseEntity.ok().cacheControl(REVALIDATE).body(this.sessionMapper.toDto(sessions));
+        }
+
+        KeysetPage<Session> page = this.sessionService.findPage(filter, after, limit);
 
-        return ResponseEntity.ok().body(this.sessionMapper.toDto(sessions));
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().cacheControl(REVALIDATE);
+        if (page.getNext() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNext());
+        }
+        return response.body(this.sessionMapper.toDto(page.getItems()));
+    }
+
+    /**
+     * Lightweight listing for overview screens, filtered and paged like {@link #findAll}.
+     */
+    @GetMapping("/summary")
+    public ResponseEntity<?> findAllSummaries(SessionFilter filter,
+                                              @RequestParam(value = "limit", required = false) Integer limit,
+                                              @RequestParam(value = "after", required = false) String after,
+                                              WebRequest request) {
+        if (request.checkNotModified(this.sessionService.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+
+        KeysetPage<SessionSummaryDto> page = this.sessionService.findSummaryPage(filter, after, limit);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().cacheControl(REVALIDATE);
+        if (page.getNext() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNext());
+        }
+        return response.body(page.getItems());
     }
 
     @PostMapping()
     public ResponseEntity<?> create(@Valid @RequestBody SessionDto sessionDto) {
         log.info(sessionDto);
 
-        Session session = this.sessionService.create(this.sessionMapper.toEntity(sessionDto));
+        try {
+            Session session = this.sessionService.create(this.sessionMapper.toEntity(sessionDto));
 
-        log.info(session);
-        return ResponseEntity.ok().body(this.sessionMapper.toDto(session));
+            log.info(session);
+            return ResponseEntity.ok().body(this.sessionMapper.toDto(session));
+        } catch (BadRequestException e) {
+            // Unknown teacher or participant ids
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: " + e.getMessage()));
+        }
     }
 
     @PutMapping("{id}")
@@ -67,6 +144,8 @@ public class SessionController {
             return ResponseEntity.ok().body(this.sessionMapper.toDto(session));
         } catch (NumberFormatException e) {
             return ResponseEntity.badRequest().build();
+        } catch (BadRequestException e) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: " + e.getMessage()));
         }
     }
 
@@ -3,14 +3,21 @@ package com.openclassrooms.starterjwt.controllers;
 import com.openclassrooms.starterjwt.mapper.TeacherMapper;
 import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.services.TeacherService;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import java.util.List;
 
-@CrossOrigin(origins = "*", maxAge = 3600)
+@CrossOrigin(origins = "*", maxAge = 3600, exposedHeaders = HttpHeaders.ETAG)
 @RestController
 @RequestMapping("/api/teacher")
 public class TeacherController {
+    // Kept by the browser but revalidated with If-None-Match on every use
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
     private final TeacherMapper teacherMapper;
     private final TeacherService teacherService;
 
@@ -36,10 +43,18 @@ public class TeacherController {
         }
     }
 
+    /**
+     * Answers 304 without reading the catalog while the client's If-None-Match is current.
+     * The 200 is sent with {@code no-cache, private} so the browser keeps it and revalidates.
+     */
     @GetMapping()
-    public ResponseEntity<?> findAll() {
+    public ResponseEntity<?> findAll(WebRequest request) {
+        if (request.checkNotModified(this.teacherService.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+
         List<Teacher> teachers = this.teacherService.findAll();
 
-        return ResponseEntity.ok().body(this.teacherMapper.toDto(teachers));
+        return ResponseEntity.ok().cacheControl(REVALIDATE).body(this.teacherMapper.toDto(teachers));
     }
 }
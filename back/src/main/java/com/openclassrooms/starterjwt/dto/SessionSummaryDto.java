@@ -0,0 +1,31 @@
+package com.openclassrooms.starterjwt.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * Listing view of a session: no description and no participant ids, only how many there are.
+ * Built directly by the Criteria constructor expression of {@code SessionRepositoryImpl.findSummaryPage}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessionSummaryDto {
+    private Long id;
+
+    private String name;
+
+    private Date date;
+
+    private Long teacher_id;
+
+    private Long participantCount;
+
+    // The Criteria size() of the participants is typed as an Integer
+    public SessionSummaryDto(Long id, String name, Date date, Long teacher_id, Integer participantCount) {
+        this(id, name, date, teacher_id, participantCount.longValue());
+    }
+}
@@ -1,19 +1,29 @@
 package com.openclassrooms.starterjwt.mapper;
 
+import com.openclassrooms.starterjwt.cache.SessionSnapshot;
 import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.services.TeacherService;
 import com.openclassrooms.starterjwt.services.UserService;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.Mappings;
+import org.mapstruct.Named;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Component
@@ -27,8 +37,8 @@ public abstract class SessionMapper implements EntityMapper<SessionDto, Session>
 
     @Mappings({
             @Mapping(source = "description", target = "description"),
-            @Mapping(target = "teacher", expression = "java(sessionDto.getTeacher_id() != null ? this.teacherService.findById(sessionDto.getTeacher_id()) : null)"),
-            @Mapping(target = "users", expression = "java(Optional.ofNullable(sessionDto.getUsers()).orElseGet(Collections::emptyList).stream().map(user_id -> { User user = this.userService.findById(user_id); if (user != null) { return user; } return null; }).collect(Collectors.toList()))"),
+            @Mapping(target = "teacher", expression = "java(this.findTeacher(sessionDto.getTeacher_id()))"),
+            @Mapping(target = "users", expression = "java(this.findUsers(sessionDto.getUsers()))"),
     })
     public abstract Session toEntity(SessionDto sessionDto);
 
@@ -39,4 +49,44 @@ public abstract class SessionMapper implements EntityMapper<SessionDto, Session>
             @Mapping(target = "users", expression = "java(Optional.ofNullable(session.getUsers()).orElseGet(Collections::emptyList).stream().map(u -> u.getId()).collect(Collectors.toList()))"),
     })
     public abstract SessionDto toDto(Session session);
+
+    @Mapping(source = "teacherId", target = "teacher_id")
+    public abstract SessionDto toDto(SessionSnapshot snapshot);
+
+    @Named("findTeacher")
+    protected Teacher findTeacher(Long teacherId) {
+        if (teacherId == null) {
+            return null;
+        }
+
+        Teacher teacher = this.teacherService.findById(teacherId);
+        if (teacher == null) {
+            throw new BadRequestException("Unknown teacher id: " + teacherId);
+        }
+        return teacher;
+    }
+
+    /**
+     * Resolves every participant with one query, whatever their number.
+     * Duplicated ids are kept once and the order of the DTO is preserved.
+     */
+    @Named("findUsers")
+    protected List<User> findUsers(List<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Set<Long> ids = new LinkedHashSet<>(userIds);
+        Map<Long, User> usersById = this.userService.findAllById(ids).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        if (usersById.size() != ids.size()) {
+            List<Long> unknownIds = ids.stream()
+                    .filter(id -> !usersById.containsKey(id))
+                    .collect(Collectors.toList());
+            throw new BadRequestException("Unknown user ids: " + unknownIds);
+        }
+
+        return ids.stream().map(usersById::get).collect(Collectors.toList());
+    }
 }
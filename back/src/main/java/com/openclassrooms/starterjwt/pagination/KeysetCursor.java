@@ -0,0 +1,49 @@
+package com.openclassrooms.starterjwt.pagination;
+
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Position in a listing ordered by (date, id).
+ * Serialised as an opaque url-safe token so that clients never build it themselves.
+ */
+@Getter
+@AllArgsConstructor
+public class KeysetCursor {
+    private static final char SEPARATOR = ':';
+
+    private final Date date;
+
+    private final Long id;
+
+    public String encode() {
+        String raw = this.date.getTime() + String.valueOf(SEPARATOR) + this.id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public static KeysetCursor decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new BadRequestException();
+            }
+
+            return new KeysetCursor(
+                    new Date(Long.parseLong(raw.substring(0, separator))),
+                    Long.valueOf(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException e) {
+            // Covers both malformed base64 and NumberFormatException
+            throw new BadRequestException();
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.openclassrooms.starterjwt.pagination;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset listing, with the cursor to pass as {@code after} to get the next one.
+ * {@code next} is null on the last page.
+ */
+@Getter
+@AllArgsConstructor
+public class KeysetPage<T> {
+    private final List<T> items;
+
+    private final String next;
+
+    /**
+     * Builds a page from a result fetched with {@code pageSize + 1} rows: the extra row only
+     * tells whether another page exists and is not returned.
+     */
+    public static <T> KeysetPage<T> of(List<T> rows, int pageSize, Function<T, KeysetCursor> cursorOf) {
+        if (rows.size() <= pageSize) {
+            return new KeysetPage<>(rows, null);
+        }
+
+        List<T> items = rows.subList(0, pageSize);
+        return new KeysetPage<>(items, cursorOf.apply(items.get(pageSize - 1)).encode());
+    }
+}
@@ -0,0 +1,38 @@
+package com.openclassrooms.starterjwt.repository;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.openclassrooms.starterjwt.models.RefreshToken;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+  Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+  /**
+   * Uses the token up, unless a concurrent refresh already did: returns 1 for the single winner, 0 otherwise.
+   */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("UPDATE RefreshToken r SET r.usedAt = :now WHERE r.id = :id AND r.usedAt IS NULL AND r.revoked = false")
+  int markUsed(@Param("id") Long id, @Param("now") Instant now);
+
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("UPDATE RefreshToken r SET r.revoked = true WHERE r.familyId = :familyId")
+  int revokeFamily(@Param("familyId") String familyId);
+
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("UPDATE RefreshToken r SET r.revoked = true WHERE r.userId = :userId")
+  int revokeUser(@Param("userId") Long userId);
+
+  @Transactional
+  @Modifying
+  @Query("DELETE FROM RefreshToken r WHERE r.expiresAt <= :now")
+  int deleteExpired(@Param("now") Instant now);
+}
@@ -0,0 +1,26 @@
+package com.openclassrooms.starterjwt.repository;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Optional restrictions of a session listing, bound from the query parameters.
+ * {@code from} is inclusive and {@code to} exclusive, both ISO-8601 instants.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessionFilter {
+    private Instant from;
+
+    private Instant to;
+
+    private Long teacherId;
+
+    public boolean isEmpty() {
+        return this.from == null && this.to == null && this.teacherId == null;
+    }
+}
@@ -2,8 +2,46 @@ package com.openclassrooms.starterjwt.repository;
 
 import com.openclassrooms.starterjwt.models.Session;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
-public interface SessionRepository  extends JpaRepository<Session, Long> {
+public interface SessionRepository  extends JpaRepository<Session, Long>, SessionRepositoryCustom {
+    // Associations are lazy: each use case states here what it loads, in a single statement.
+    // DISTINCT only removes the duplicated roots of the fetch join, it does not need to reach the SQL.
+
+    @Query("SELECT s FROM Session s LEFT JOIN FETCH s.users WHERE s.id = :id")
+    Optional<Session> findWithUsersById(@Param("id") Long id);
+
+    @Query("SELECT DISTINCT s FROM Session s LEFT JOIN FETCH s.users")
+    @QueryHints(@QueryHint(name = "hibernate.query.passDistinctThrough", value = "false"))
+    List<Session> findAllWithUsers();
+
+    @Query("SELECT DISTINCT s FROM Session s LEFT JOIN FETCH s.users WHERE s.id IN :ids")
+    @QueryHints(@QueryHint(name = "hibernate.query.passDistinctThrough", value = "false"))
+    List<Session> findWithUsersByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Writes one PARTICIPATE row, whatever the number of participants of the session.
+     * Fails with a DataIntegrityViolationException when the pair already exists.
+     * The persistence context is cleared as loaded sessions no longer list every participant.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "INSERT INTO PARTICIPATE (session_id, user_id) VALUES (:sessionId, :userId)", nativeQuery = true)
+    int addParticipant(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
+
+    /**
+     * Deletes the single PARTICIPATE row of the pair and returns how many rows went away (0 or 1).
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM PARTICIPATE WHERE session_id = :sessionId AND user_id = :userId", nativeQuery = true)
+    int removeParticipant(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
 }
@@ -0,0 +1,18 @@
+package com.openclassrooms.starterjwt.repository;
+
+import com.openclassrooms.starterjwt.dto.SessionSummaryDto;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.pagination.KeysetCursor;
+
+import java.util.List;
+
+/**
+ * Keyset paged listings ordered by (date, id). Only the restrictions actually set end up in
+ * the SQL, so that every combination can be served by the SESSIONS(date) or
+ * SESSIONS(teacher_id, date) index.
+ */
+public interface SessionRepositoryCustom {
+    List<Session> findPage(SessionFilter filter, KeysetCursor after, int limit);
+
+    List<SessionSummaryDto> findSummaryPage(SessionFilter filter, KeysetCursor after, int limit);
+}
@@ -0,0 +1,75 @@
+package com.openclassrooms.starterjwt.repository;
+
+import com.openclassrooms.starterjwt.dto.SessionSummaryDto;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.pagination.KeysetCursor;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+public class SessionRepositoryImpl implements SessionRepositoryCustom {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Session> findPage(SessionFilter filter, KeysetCursor after, int limit) {
+        CriteriaBuilder cb = this.entityManager.getCriteriaBuilder();
+        CriteriaQuery<Session> query = cb.createQuery(Session.class);
+        Root<Session> session = query.from(Session.class);
+
+        query.select(session)
+                .where(this.restrictions(cb, session, filter, after))
+                .orderBy(cb.asc(session.get("date")), cb.asc(session.get("id")));
+
+        return this.entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public List<SessionSummaryDto> findSummaryPage(SessionFilter filter, KeysetCursor after, int limit) {
+        CriteriaBuilder cb = this.entityManager.getCriteriaBuilder();
+        CriteriaQuery<SessionSummaryDto> query = cb.createQuery(SessionSummaryDto.class);
+        Root<Session> session = query.from(Session.class);
+
+        // size() is a correlated count on PARTICIPATE per returned row: no join nor GROUP BY
+        // in front of the LIMIT, so the page is still read from the index
+        query.select(cb.construct(SessionSummaryDto.class,
+                        session.get("id"), session.get("name"), session.get("date"), session.get("teacher").get("id"),
+                        cb.size(session.<List<User>>get("users"))))
+                .where(this.restrictions(cb, session, filter, after))
+                .orderBy(cb.asc(session.get("date")), cb.asc(session.get("id")));
+
+        return this.entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    private Predicate[] restrictions(CriteriaBuilder cb, Root<Session> session, SessionFilter filter, KeysetCursor after) {
+        List<Predicate> predicates = new ArrayList<>();
+        Path<Date> date = session.get("date");
+
+        if (filter.getFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(date, Date.from(filter.getFrom())));
+        }
+        if (filter.getTo() != null) {
+            predicates.add(cb.lessThan(date, Date.from(filter.getTo())));
+        }
+        if (filter.getTeacherId() != null) {
+            predicates.add(cb.equal(session.get("teacher").get("id"), filter.getTeacherId()));
+        }
+        if (after != null) {
+            Path<Long> id = session.get("id");
+            predicates.add(cb.or(
+                    cb.greaterThan(date, after.getDate()),
+                    cb.and(cb.equal(date, after.getDate()), cb.greaterThan(id, after.getId()))));
+        }
+
+        return predicates.toArray(new Predicate[0]);
+    }
+}
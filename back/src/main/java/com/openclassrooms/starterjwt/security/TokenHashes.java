@@ -0,0 +1,27 @@
+package com.openclassrooms.starterjwt.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Digest used wherever a bearer or refresh token has to be looked up without being kept as is.
+ */
+public final class TokenHashes {
+  private TokenHashes() {
+  }
+
+  /**
+   * Base64 of the SHA-256 of the token.
+   */
+  public static String sha256(String token) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+      return Base64.getEncoder().encodeToString(digest);
+    } catch (NoSuchAlgorithmException e) {
+      // Every JVM has to provide SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+}
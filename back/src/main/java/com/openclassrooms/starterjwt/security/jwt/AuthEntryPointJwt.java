@@ -1,8 +1,6 @@
 package com.openclassrooms.starterjwt.security.jwt;
 
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
@@ -10,34 +8,51 @@ import javax.servlet.http.HttpServletResponse;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.stereotype.Component;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 
 @Component
 public class AuthEntryPointJwt implements AuthenticationEntryPoint {
 
   private static final Logger logger = LoggerFactory.getLogger(AuthEntryPointJwt.class);
 
+  // Thread-safe and reusable: the body is streamed field by field, without an ObjectMapper nor a Map per request
+  private static final JsonFactory json = new JsonFactory();
+
+  private final LogSampler logSampler;
+
+  public AuthEntryPointJwt(@Value("${oc.app.unauthorizedLogIntervalMs}") long unauthorizedLogIntervalMs) {
+    this.logSampler = new LogSampler(unauthorizedLogIntervalMs);
+  }
+
   @Override
   public void commence(HttpServletRequest request, HttpServletResponse response, AuthenticationException authException)
       throws IOException, ServletException {
-    logger.error("Unauthorized error: {}", authException.getMessage());
+    // Scanners can send thousands of these per second: one line per interval, the rest at debug level
+    long suppressed = logSampler.sample();
+    if (suppressed >= 0) {
+      logger.error("Unauthorized error: {} ({} similar errors suppressed)", authException.getMessage(), suppressed);
+    } else {
+      logger.debug("Unauthorized error: {}", authException.getMessage());
+    }
 
     response.setContentType(MediaType.APPLICATION_JSON_VALUE);
     response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
 
-    final Map<String, Object> body = new HashMap<>();
-    body.put("status", HttpServletResponse.SC_UNAUTHORIZED);
-    body.put("error", "Unauthorized");
-    body.put("message", authException.getMessage());
-    body.put("path", request.getServletPath());
-
-    final ObjectMapper mapper = new ObjectMapper();
-    mapper.writeValue(response.getOutputStream(), body);
+    try (JsonGenerator body = json.createGenerator(response.getOutputStream())) {
+      body.writeStartObject();
+      body.writeNumberField("status", HttpServletResponse.SC_UNAUTHORIZED);
+      body.writeStringField("error", "Unauthorized");
+      body.writeStringField("message", authException.getMessage());
+      body.writeStringField("path", request.getServletPath());
+      body.writeEndObject();
+    }
   }
 
 }
@@ -7,47 +7,73 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import com.openclassrooms.starterjwt.security.jwt.JwtFailures.Reason;
+import com.openclassrooms.starterjwt.security.services.TokenRevocations;
+import com.openclassrooms.starterjwt.security.services.UserDetailsCache;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
 import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
 
+import io.jsonwebtoken.Claims;
+
 public class AuthTokenFilter extends OncePerRequestFilter {
   @Autowired
   private JwtUtils jwtUtils;
 
+  @Autowired
+  private VerifiedTokenCache verifiedTokenCache;
+
   @Autowired
   private UserDetailsServiceImpl userDetailsService;
 
-  private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
+  @Autowired
+  private UserDetailsCache userDetailsCache;
+
+  @Autowired
+  private TokenRevocations tokenRevocations;
+
+  @Autowired
+  private JwtFailures jwtFailures;
+
+  // false: always reload the principal from the database instead of trusting the token claims
+  @Value("${oc.app.jwtStatelessPrincipal}")
+  private boolean statelessPrincipal;
 
   @Override
   protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
       throws ServletException, IOException {
     try {
       String jwt = parseJwt(request);
-      if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-        String username = jwtUtils.getUserNameFromJwtToken(jwt);
-
-        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-        UsernamePasswordAuthenticationToken authentication =
-            new UsernamePasswordAuthenticationToken(
-                userDetails,
-                null,
-                userDetails.getAuthorities());
-        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-
-        SecurityContextHolder.getContext().setAuthentication(authentication);
+      Claims claims = jwt == null ? null : verifiedTokenCache.verify(jwt);
+      if (claims != null) {
+        UserDetailsImpl userDetails = statelessPrincipal ? jwtUtils.getUserDetailsFromClaims(claims) : null;
+        if (userDetails == null) {
+          userDetails = userDetailsCache.get(claims.getSubject(),
+              email -> (UserDetailsImpl) userDetailsService.loadUserByUsername(email));
+        }
+
+        // Logged out tokens and tokens issued before the user was deleted stay unauthenticated
+        if (!tokenRevocations.isRevoked(claims.getId(), userDetails.getId(), claims.getIssuedAt())) {
+          UsernamePasswordAuthenticationToken authentication =
+              new UsernamePasswordAuthenticationToken(
+                  userDetails,
+                  null,
+                  userDetails.getAuthorities());
+          authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+
+          SecurityContextHolder.getContext().setAuthentication(authentication);
+        }
       }
     } catch (Exception e) {
-      logger.error("Cannot set user authentication: {}", e);
+      // Sampled like token failures: a deleted user's tokens would otherwise log a stack trace per request
+      jwtFailures.record(Reason.PRINCIPAL, e.toString());
     }
 
     filterChain.doFilter(request, response);
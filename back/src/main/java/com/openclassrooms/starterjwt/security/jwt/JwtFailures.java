@@ -0,0 +1,61 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Accounts for rejected bearer tokens. Every failure is counted as "auth.jwt.failures" tagged by reason,
+ * but each reason logs a single line per interval with the number of similar failures held back,
+ * so an expired-token storm after a deploy does not turn into a storm of synchronous log writes.
+ */
+@Component
+public class JwtFailures {
+  private static final Logger logger = LoggerFactory.getLogger(JwtFailures.class);
+
+  public enum Reason {
+    SIGNATURE("Invalid JWT signature"),
+    MALFORMED("Invalid JWT token"),
+    EXPIRED("JWT token is expired"),
+    UNSUPPORTED("JWT token is unsupported"),
+    EMPTY("JWT claims string is empty"),
+    PRINCIPAL("Cannot set user authentication");
+
+    private final String description;
+
+    Reason(String description) {
+      this.description = description;
+    }
+  }
+
+  private final Map<Reason, Counter> counters = new EnumMap<>(Reason.class);
+  private final Map<Reason, LogSampler> samplers = new EnumMap<>(Reason.class);
+
+  public JwtFailures(MeterRegistry meterRegistry, @Value("${oc.app.jwtFailureLogIntervalMs}") long jwtFailureLogIntervalMs) {
+    for (Reason reason : Reason.values()) {
+      this.counters.put(reason, Counter.builder("auth.jwt.failures")
+          .tag("reason", reason.name().toLowerCase(Locale.ROOT))
+          .register(meterRegistry));
+      this.samplers.put(reason, new LogSampler(jwtFailureLogIntervalMs));
+    }
+  }
+
+  public void record(Reason reason, String message) {
+    this.counters.get(reason).increment();
+
+    long suppressed = this.samplers.get(reason).sample();
+    if (suppressed >= 0) {
+      logger.warn("{}: {} ({} similar failures suppressed)", reason.description, message, suppressed);
+    } else {
+      logger.debug("{}: {}", reason.description, message);
+    }
+  }
+}
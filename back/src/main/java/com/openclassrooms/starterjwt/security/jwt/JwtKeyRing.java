@@ -0,0 +1,92 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import java.security.Key;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import javax.crypto.spec.SecretKeySpec;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.impl.TextCodec;
+
+/**
+ * Immutable set of HS512 keys, decoded once.
+ * Tokens carrying a kid header are verified with that key. Tokens without one were signed with the
+ * legacy oc.app.jwtSecret: once a key file is loaded they only verify while legacy tokens are accepted,
+ * which is meant for the first token lifetime after the switch. The "acceptLegacy" entry of the key file
+ * decides, oc.app.jwtAcceptLegacy being only the default, so the secret is retired by a file reload.
+ * New tokens are signed with the active key, or with the legacy secret when no key file is configured.
+ */
+public final class JwtKeyRing {
+  static final String ACTIVE_PROPERTY = "active";
+  static final String KEY_PREFIX = "key.";
+  static final String ACCEPT_LEGACY_PROPERTY = "acceptLegacy";
+
+  private final Key legacyKey;
+  private final Map<String, Key> keys;
+  private final String activeKid;
+
+  private JwtKeyRing(Key legacyKey, Map<String, Key> keys, String activeKid) {
+    this.legacyKey = legacyKey;
+    this.keys = Collections.unmodifiableMap(keys);
+    this.activeKid = activeKid;
+  }
+
+  public static JwtKeyRing of(String legacySecret) {
+    return new JwtKeyRing(key(legacySecret), new HashMap<>(), null);
+  }
+
+  /**
+   * Reads "key.&lt;kid&gt;=&lt;base64 secret&gt;" entries, the "active=&lt;kid&gt;" signing key and the optional
+   * "acceptLegacy=true|false" switch, which falls back to {@code defaultAcceptLegacy}.
+   */
+  public static JwtKeyRing of(String legacySecret, Properties keyFile, boolean defaultAcceptLegacy) {
+    Map<String, Key> keys = new HashMap<>();
+    for (String name : keyFile.stringPropertyNames()) {
+      if (name.startsWith(KEY_PREFIX)) {
+        keys.put(name.substring(KEY_PREFIX.length()), key(keyFile.getProperty(name).trim()));
+      }
+    }
+
+    String activeKid = keyFile.getProperty(ACTIVE_PROPERTY);
+    if (activeKid != null && !keys.containsKey(activeKid.trim())) {
+      throw new IllegalArgumentException("Active JWT key not found in the key ring: " + activeKid);
+    }
+
+    boolean acceptLegacy = defaultAcceptLegacy;
+    String acceptLegacyValue = keyFile.getProperty(ACCEPT_LEGACY_PROPERTY);
+    if (acceptLegacyValue != null) {
+      acceptLegacyValue = acceptLegacyValue.trim();
+      // A typo must not silently keep, or retire, the legacy secret
+      if (!"true".equalsIgnoreCase(acceptLegacyValue) && !"false".equalsIgnoreCase(acceptLegacyValue)) {
+        throw new IllegalArgumentException("acceptLegacy must be true or false: " + acceptLegacyValue);
+      }
+      acceptLegacy = Boolean.parseBoolean(acceptLegacyValue);
+    }
+
+    return new JwtKeyRing(acceptLegacy ? key(legacySecret) : null, keys, activeKid == null ? null : activeKid.trim());
+  }
+
+  // Same decoding as Jwts.parser().setSigningKey(String): the secret is read as Base64
+  private static Key key(String base64Secret) {
+    return new SecretKeySpec(TextCodec.BASE64.decode(base64Secret), SignatureAlgorithm.HS512.getJcaName());
+  }
+
+  public String getActiveKid() {
+    return activeKid;
+  }
+
+  public Key getSigningKey() {
+    return activeKid == null ? legacyKey : keys.get(activeKid);
+  }
+
+  /**
+   * Returns the key of the given kid, the legacy key when there is none, or null for an unknown kid
+   * or a retired legacy key.
+   */
+  public Key getVerificationKey(String kid) {
+    return kid == null ? legacyKey : keys.get(kid);
+  }
+}
@@ -0,0 +1,74 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+/**
+ * Loads the JWT key ring from oc.app.jwtKeyFile and re-reads it periodically, so keys can be
+ * rotated without a restart. Without a key file, JwtUtils keeps signing with oc.app.jwtSecret; with one,
+ * kid-less tokens signed with that secret are only accepted while the file's "acceptLegacy" entry, or
+ * oc.app.jwtAcceptLegacy when the file has none, is true.
+ * A file that cannot be read or parsed leaves the current ring in place.
+ */
+@Component
+public class JwtKeyRingLoader {
+  private static final Logger logger = LoggerFactory.getLogger(JwtKeyRingLoader.class);
+
+  private final JwtUtils jwtUtils;
+  private final VerifiedTokenCache verifiedTokenCache;
+  private final String jwtSecret;
+  private final String keyFile;
+  private final boolean acceptLegacy;
+
+  private String loadedContent;
+
+  public JwtKeyRingLoader(JwtUtils jwtUtils,
+                          VerifiedTokenCache verifiedTokenCache,
+                          @Value("${oc.app.jwtSecret}") String jwtSecret,
+                          @Value("${oc.app.jwtKeyFile}") String keyFile,
+                          @Value("${oc.app.jwtAcceptLegacy}") boolean acceptLegacy) {
+    this.jwtUtils = jwtUtils;
+    this.verifiedTokenCache = verifiedTokenCache;
+    this.jwtSecret = jwtSecret;
+    this.keyFile = keyFile;
+    this.acceptLegacy = acceptLegacy;
+  }
+
+  @PostConstruct
+  @Scheduled(fixedDelayString = "${oc.app.jwtKeyRefreshMs}", initialDelayString = "${oc.app.jwtKeyRefreshMs}")
+  public synchronized void reload() {
+    if (!StringUtils.hasText(keyFile)) {
+      return;
+    }
+
+    try {
+      String content = new String(Files.readAllBytes(Paths.get(keyFile)), StandardCharsets.UTF_8);
+      if (content.equals(loadedContent)) {
+        return;
+      }
+
+      Properties properties = new Properties();
+      properties.load(new StringReader(content));
+      jwtUtils.setKeyRing(JwtKeyRing.of(jwtSecret, properties, acceptLegacy));
+      // Tokens of a retired key must not stay verified through the cache
+      verifiedTokenCache.clear();
+      loadedContent = content;
+      logger.info("JWT key ring loaded, active key: {}", jwtUtils.getKeyRing().getActiveKid());
+    } catch (IOException | IllegalArgumentException e) {
+      logger.error("Cannot load the JWT key ring from {}: {}", keyFile, e.getMessage());
+    }
+  }
+}
@@ -1,20 +1,24 @@
 package com.openclassrooms.starterjwt.security.jwt;
 
+import java.security.Key;
 import java.util.Date;
+import java.util.UUID;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
 
+import com.openclassrooms.starterjwt.security.jwt.JwtFailures.Reason;
 import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
 
 import io.jsonwebtoken.*;
 
 @Component
 public class JwtUtils {
-  private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
+  static final String ID_CLAIM = "id";
+  static final String FIRST_NAME_CLAIM = "firstName";
+  static final String LAST_NAME_CLAIM = "lastName";
+  static final String ADMIN_CLAIM = "admin";
 
   @Value("${oc.app.jwtSecret}")
   private String jwtSecret;
@@ -22,38 +26,121 @@ public class JwtUtils {
   @Value("${oc.app.jwtExpirationMs}")
   private int jwtExpirationMs;
 
+  private volatile JwtKeyRing keyRing;
+
+  private volatile JwtParser parser;
+
+  private final JwtFailures jwtFailures;
+
+  public JwtUtils(JwtFailures jwtFailures) {
+    this.jwtFailures = jwtFailures;
+  }
+
+  public JwtKeyRing getKeyRing() {
+    JwtKeyRing ring = keyRing;
+    if (ring == null) {
+      ring = JwtKeyRing.of(jwtSecret);
+      keyRing = ring;
+    }
+    return ring;
+  }
+
+  public void setKeyRing(JwtKeyRing keyRing) {
+    this.keyRing = keyRing;
+  }
+
+  // Configured once: the key is resolved per token from the current ring
+  private JwtParser parser() {
+    JwtParser configured = parser;
+    if (configured == null) {
+      configured = Jwts.parser().setSigningKeyResolver(new SigningKeyResolverAdapter() {
+        @Override
+        public Key resolveSigningKey(JwsHeader header, Claims claims) {
+          Key key = getKeyRing().getVerificationKey(header.getKeyId());
+          if (key == null) {
+            throw new SignatureException(header.getKeyId() == null
+                ? "JWT signed with the retired legacy key"
+                : "Unknown JWT signing key: " + header.getKeyId());
+          }
+          return key;
+        }
+      });
+      parser = configured;
+    }
+    return configured;
+  }
+
   public String generateJwtToken(Authentication authentication) {
+    return generateJwtToken((UserDetailsImpl) authentication.getPrincipal());
+  }
 
-    UserDetailsImpl userPrincipal = (UserDetailsImpl) authentication.getPrincipal();
+  public String generateJwtToken(UserDetailsImpl userPrincipal) {
+    JwtKeyRing ring = getKeyRing();
 
-    return Jwts.builder()
+    JwtBuilder builder = Jwts.builder();
+    if (ring.getActiveKid() != null) {
+      builder.setHeaderParam(JwsHeader.KEY_ID, ring.getActiveKid());
+    }
+
+    return builder
+        .setId(UUID.randomUUID().toString())
         .setSubject((userPrincipal.getUsername()))
+        .claim(ID_CLAIM, userPrincipal.getId())
+        .claim(FIRST_NAME_CLAIM, userPrincipal.getFirstName())
+        .claim(LAST_NAME_CLAIM, userPrincipal.getLastName())
+        .claim(ADMIN_CLAIM, userPrincipal.getAdmin())
         .setIssuedAt(new Date())
         .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-        .signWith(SignatureAlgorithm.HS512, jwtSecret)
+        .signWith(SignatureAlgorithm.HS512, ring.getSigningKey())
         .compact();
   }
 
   public String getUserNameFromJwtToken(String token) {
-    return Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(token).getBody().getSubject();
+    return parser().parseClaimsJws(token).getBody().getSubject();
+  }
+
+  /**
+   * Rebuilds the principal from verified claims, without any database access.
+   * Returns null for tokens issued before the claims were added, which have to go through the database.
+   */
+  public UserDetailsImpl getUserDetailsFromClaims(Claims claims) {
+    Object id = claims.get(ID_CLAIM);
+    if (!(id instanceof Number)) {
+      return null;
+    }
+
+    return UserDetailsImpl.builder()
+        .id(((Number) id).longValue())
+        .username(claims.getSubject())
+        .firstName(claims.get(FIRST_NAME_CLAIM, String.class))
+        .lastName(claims.get(LAST_NAME_CLAIM, String.class))
+        .admin(claims.get(ADMIN_CLAIM, Boolean.class))
+        .build();
   }
 
   public boolean validateJwtToken(String authToken) {
+    return getVerifiedClaims(authToken) != null;
+  }
+
+  /**
+   * Parses the token and checks its signature and expiration in a single pass.
+   * Returns its claims, or null when the token cannot be trusted.
+   */
+  public Claims getVerifiedClaims(String authToken) {
     try {
-      Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(authToken);
-      return true;
+      return parser().parseClaimsJws(authToken).getBody();
     } catch (SignatureException e) {
-      logger.error("Invalid JWT signature: {}", e.getMessage());
+      jwtFailures.record(Reason.SIGNATURE, e.getMessage());
     } catch (MalformedJwtException e) {
-      logger.error("Invalid JWT token: {}", e.getMessage());
+      jwtFailures.record(Reason.MALFORMED, e.getMessage());
     } catch (ExpiredJwtException e) {
-      logger.error("JWT token is expired: {}", e.getMessage());
+      jwtFailures.record(Reason.EXPIRED, e.getMessage());
     } catch (UnsupportedJwtException e) {
-      logger.error("JWT token is unsupported: {}", e.getMessage());
+      jwtFailures.record(Reason.UNSUPPORTED, e.getMessage());
     } catch (IllegalArgumentException e) {
-      logger.error("JWT claims string is empty: {}", e.getMessage());
+      jwtFailures.record(Reason.EMPTY, e.getMessage());
     }
 
-    return false;
+    return null;
   }
 }
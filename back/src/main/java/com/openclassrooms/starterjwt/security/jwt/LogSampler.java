@@ -0,0 +1,39 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Lets one log line through per interval and counts the ones it held back,
+ * so a flood of identical failures costs a counter increment instead of a log write.
+ */
+public class LogSampler {
+  private final long intervalNanos;
+  private final LongSupplier nanoClock;
+  private final AtomicLong nextLogAt;
+  private final AtomicLong suppressed = new AtomicLong();
+
+  public LogSampler(long intervalMs) {
+    this(intervalMs, System::nanoTime);
+  }
+
+  LogSampler(long intervalMs, LongSupplier nanoClock) {
+    this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMs);
+    this.nanoClock = nanoClock;
+    this.nextLogAt = new AtomicLong(nanoClock.getAsLong());
+  }
+
+  /**
+   * @return -1 when this event must not be logged, otherwise the number of events suppressed since the last one logged
+   */
+  public long sample() {
+    long now = this.nanoClock.getAsLong();
+    long next = this.nextLogAt.get();
+    if (now - next >= 0 && this.nextLogAt.compareAndSet(next, now + this.intervalNanos)) {
+      return this.suppressed.getAndSet(0);
+    }
+    this.suppressed.incrementAndGet();
+    return -1;
+  }
+}
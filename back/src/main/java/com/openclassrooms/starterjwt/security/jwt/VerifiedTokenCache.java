@@ -0,0 +1,79 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import com.openclassrooms.starterjwt.security.TokenHashes;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Claims of the tokens already verified by {@link JwtUtils}, so that a client sending the same
+ * token again skips the signature check. Entries are keyed by the SHA-256 of the token (the
+ * bearer token itself is never kept) and expire when the token does.
+ * The cached claims are shared between requests and must only be read.
+ */
+@Component
+public class VerifiedTokenCache {
+  private final JwtUtils jwtUtils;
+
+  private final Cache<String, Claims> cache;
+
+  public VerifiedTokenCache(JwtUtils jwtUtils,
+                            @Value("${oc.app.jwtCacheMaxSize}") long maxSize,
+                            @Value("${oc.app.jwtExpirationMs}") long maxTtlMs,
+                            MeterRegistry meterRegistry) {
+    this.jwtUtils = jwtUtils;
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfter(new Expiry<String, Claims>() {
+          @Override
+          public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            return nanosUntilExpiration(claims, System.currentTimeMillis(), maxTtlMs);
+          }
+
+          @Override
+          public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+          }
+
+          @Override
+          public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+          }
+        })
+        .recordStats()
+        .build();
+
+    CaffeineCacheMetrics.monitor(meterRegistry, this.cache, "jwt.verified");
+  }
+
+  /**
+   * Returns the claims of a valid token, verifying it only if it is not cached yet, or null.
+   */
+  public Claims verify(String token) {
+    return this.cache.get(TokenHashes.sha256(token), key -> this.jwtUtils.getVerifiedClaims(token));
+  }
+
+  public void clear() {
+    this.cache.invalidateAll();
+  }
+
+  /**
+   * Time left until the exp claim, capped by the lifetime of the tokens we issue.
+   */
+  static long nanosUntilExpiration(Claims claims, long nowMillis, long maxTtlMs) {
+    Date expiration = claims.getExpiration();
+    long ttlMs = expiration == null ? maxTtlMs : Math.min(expiration.getTime() - nowMillis, maxTtlMs);
+    return TimeUnit.MILLISECONDS.toNanos(Math.max(ttlMs, 0));
+  }
+}
@@ -0,0 +1,54 @@
+package com.openclassrooms.starterjwt.security.ratelimit;
+
+import java.io.IOException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.openclassrooms.starterjwt.exception.TooManyRequestsException;
+
+/**
+ * Per-IP limit in front of /api/auth/**, before any BCrypt work is done.
+ * The remote address is used as is: a reverse proxy must be configured to forward the client address.
+ */
+public class AuthRateLimitFilter extends OncePerRequestFilter {
+  // Thread-safe and reusable, as in AuthEntryPointJwt: the MessageResponse body is streamed without an ObjectMapper
+  private static final JsonFactory json = new JsonFactory();
+
+  @Autowired
+  private AuthRateLimits authRateLimits;
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return !request.getServletPath().startsWith("/api/auth/");
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    long retryAfter = authRateLimits.tryAcquireForIp(request.getRemoteAddr());
+    if (retryAfter > 0) {
+      response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+      response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+      response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+      try (JsonGenerator body = json.createGenerator(response.getOutputStream())) {
+        body.writeStartObject();
+        body.writeStringField("message", TooManyRequestsException.MESSAGE);
+        body.writeEndObject();
+      }
+      return;
+    }
+
+    filterChain.doFilter(request, response);
+  }
+}
@@ -0,0 +1,55 @@
+package com.openclassrooms.starterjwt.security.ratelimit;
+
+import java.util.Locale;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Rate limits of the /api/auth endpoints, where every call costs a BCrypt computation:
+ * per client IP in AuthRateLimitFilter, per email in AuthController.
+ */
+@Component
+public class AuthRateLimits {
+  private final RateLimiter byIp;
+  private final RateLimiter byEmail;
+  private final Counter ipRejections;
+  private final Counter emailRejections;
+
+  public AuthRateLimits(@Value("${oc.app.auth.ipPermitsPerMinute}") long ipPermitsPerMinute,
+                        @Value("${oc.app.auth.ipBurst}") long ipBurst,
+                        @Value("${oc.app.auth.emailPermitsPerMinute}") long emailPermitsPerMinute,
+                        @Value("${oc.app.auth.emailBurst}") long emailBurst,
+                        @Value("${oc.app.auth.rateLimitMaxKeys}") long maxKeys,
+                        MeterRegistry meterRegistry) {
+    this.byIp = new RateLimiter(ipPermitsPerMinute, ipBurst, maxKeys);
+    this.byEmail = new RateLimiter(emailPermitsPerMinute, emailBurst, maxKeys);
+    this.ipRejections = Counter.builder("auth.ratelimit.rejected").tag("scope", "ip").register(meterRegistry);
+    this.emailRejections = Counter.builder("auth.ratelimit.rejected").tag("scope", "email").register(meterRegistry);
+  }
+
+  /**
+   * @return 0 when allowed, otherwise the Retry-After in seconds
+   */
+  public long tryAcquireForIp(String ip) {
+    long retryAfter = this.byIp.tryAcquire(ip);
+    if (retryAfter > 0) {
+      this.ipRejections.increment();
+    }
+    return retryAfter;
+  }
+
+  /**
+   * @return 0 when allowed, otherwise the Retry-After in seconds
+   */
+  public long tryAcquireForEmail(String email) {
+    long retryAfter = this.byEmail.tryAcquire(email.toLowerCase(Locale.ROOT));
+    if (retryAfter > 0) {
+      this.emailRejections.increment();
+    }
+    return retryAfter;
+  }
+}
@@ -0,0 +1,56 @@
+package com.openclassrooms.starterjwt.security.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Token bucket per key, kept as a single theoretical arrival time (GCRA) updated by compare-and-set.
+ * A key idle for longer than it takes to refill the whole bucket holds no state worth keeping,
+ * so entries expire after that time and the map is bounded in size.
+ */
+public class RateLimiter {
+  private final long intervalNanos;
+  private final long toleranceNanos;
+  private final LongSupplier nanoClock;
+  private final Cache<String, AtomicLong> arrivals;
+
+  public RateLimiter(long permitsPerMinute, long burst, long maxKeys) {
+    this(permitsPerMinute, burst, maxKeys, System::nanoTime);
+  }
+
+  RateLimiter(long permitsPerMinute, long burst, long maxKeys, LongSupplier nanoClock) {
+    this.intervalNanos = TimeUnit.MINUTES.toNanos(1) / permitsPerMinute;
+    this.toleranceNanos = this.intervalNanos * (burst - 1);
+    this.nanoClock = nanoClock;
+    this.arrivals = Caffeine.newBuilder()
+        .maximumSize(maxKeys)
+        .expireAfterAccess(this.intervalNanos * burst, TimeUnit.NANOSECONDS)
+        .build();
+  }
+
+  /**
+   * Takes one token for the key.
+   *
+   * @return 0 when the call is allowed, otherwise the number of seconds to wait (at least 1)
+   */
+  public long tryAcquire(String key) {
+    long now = this.nanoClock.getAsLong();
+    AtomicLong arrival = this.arrivals.get(key, k -> new AtomicLong(now));
+
+    while (true) {
+      long current = arrival.get();
+      long base = Math.max(current, now);
+      long waitNanos = base - this.toleranceNanos - now;
+      if (waitNanos > 0) {
+        return Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+      }
+      if (arrival.compareAndSet(current, base + this.intervalNanos)) {
+        return 0;
+      }
+    }
+  }
+}
@@ -0,0 +1,80 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * BCrypt work factor chosen at startup: the highest cost within [minCost, maxCost] whose hash
+ * still takes no more than the target time on this hardware. Each cost step doubles the work,
+ * so the search climbs one step at a time and stops before overshooting. Each cost is timed
+ * over several hashes and judged on the median, so one GC pause or scheduler hiccup cannot
+ * stop the climb early.
+ */
+final class BCryptCalibration {
+  private static final int SAMPLES_PER_COST = 5;
+  private static final Pattern BCRYPT_PREFIX = Pattern.compile("^\\$2[abxy]?\\$(\\d{2})\\$");
+
+  private final int cost;
+  private final long hashMillis;
+
+  BCryptCalibration(int cost, long hashMillis) {
+    this.cost = cost;
+    this.hashMillis = hashMillis;
+  }
+
+  static BCryptCalibration calibrate(long targetMs, int minCost, int maxCost) {
+    if (minCost > maxCost) {
+      throw new IllegalArgumentException("bcryptMinCost must not exceed bcryptMaxCost");
+    }
+    // The first hash pays for class loading and JIT, it would skew the measure
+    new BCryptPasswordEncoder(minCost).encode("calibration");
+
+    int cost = minCost;
+    long hashMillis = measure(cost);
+    while (cost < maxCost && hashMillis * 2 <= targetMs) {
+      cost++;
+      hashMillis = measure(cost);
+    }
+    return new BCryptCalibration(cost, hashMillis);
+  }
+
+  /**
+   * Cost of a BCrypt hash, or -1 when the value is not a BCrypt hash.
+   */
+  static int costOf(String encodedPassword) {
+    if (encodedPassword == null) {
+      return -1;
+    }
+    Matcher matcher = BCRYPT_PREFIX.matcher(encodedPassword);
+    return matcher.find() ? Integer.parseInt(matcher.group(1)) : -1;
+  }
+
+  int getCost() {
+    return this.cost;
+  }
+
+  long getHashMillis() {
+    return this.hashMillis;
+  }
+
+  static long median(long[] samples) {
+    long[] sorted = samples.clone();
+    Arrays.sort(sorted);
+    int middle = sorted.length / 2;
+    return sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+  }
+
+  private static long measure(int cost) {
+    BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(cost);
+    long[] samples = new long[SAMPLES_PER_COST];
+    for (int i = 0; i < samples.length; i++) {
+      long start = System.nanoTime();
+      encoder.encode("calibration");
+      samples[i] = (System.nanoTime() - start) / 1_000_000;
+    }
+    return median(samples);
+  }
+}
@@ -0,0 +1,69 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size Bloom filter of strings: no false negatives, a tunable rate of false positives.
+ * Bits are only ever set, with atomic operations, so reads need no lock.
+ */
+final class BloomFilter {
+  private final AtomicLongArray bits;
+  private final long bitCount;
+  private final int hashCount;
+
+  BloomFilter(long expectedEntries, double falsePositiveRate) {
+    long n = Math.max(1, expectedEntries);
+    long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+    this.bitCount = Math.max(64, m);
+    this.hashCount = Math.max(1, (int) Math.round((double) this.bitCount / n * Math.log(2)));
+    this.bits = new AtomicLongArray((int) ((this.bitCount + 63) / 64));
+  }
+
+  void put(String value) {
+    long hash = hash64(value);
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32);
+    for (int i = 1; i <= this.hashCount; i++) {
+      long bit = index(h1 + i * h2);
+      int word = (int) (bit >>> 6);
+      long mask = 1L << bit;
+      long current;
+      do {
+        current = this.bits.get(word);
+      } while ((current & mask) == 0 && !this.bits.compareAndSet(word, current, current | mask));
+    }
+  }
+
+  boolean mightContain(String value) {
+    long hash = hash64(value);
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32);
+    for (int i = 1; i <= this.hashCount; i++) {
+      long bit = index(h1 + i * h2);
+      if ((this.bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private long index(int combined) {
+    return (combined & Integer.MAX_VALUE) % this.bitCount;
+  }
+
+  // FNV-1a over the UTF-8 bytes, then the murmur3 finalizer to spread the bits
+  private static long hash64(String value) {
+    long hash = 0xcbf29ce484222325L;
+    for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+      hash ^= b;
+      hash *= 0x100000001b3L;
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+}
@@ -0,0 +1,165 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import com.openclassrooms.starterjwt.exception.ServiceUnavailableException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+/**
+ * BCrypt on a dedicated, bounded pool so a login storm cannot take every Tomcat worker.
+ * Request threads wait for their own hash but never queue unboundedly: once the pool and its queue
+ * are full, the call fails fast with a ServiceUnavailableException (answered with 503 + Retry-After).
+ * The pool is published as "passwordHashing" and the hash latency as "auth.password.hashing".
+ * The BCrypt cost is calibrated at startup against oc.app.auth.bcryptTargetMs; the chosen cost and
+ * its measured hash time are published as "auth.password.bcrypt.cost" and "auth.password.bcrypt.calibrated.time".
+ * Stored hashes are only flagged for rehash below that cost, unless oc.app.auth.bcryptAllowDowngrade is set.
+ * Rehashes run on their own single thread, published as "passwordRehashing", so they never take a
+ * slot of the login pool nor more than one core.
+ */
+@Component
+public class BoundedPasswordEncoder implements PasswordEncoder, DisposableBean {
+  private final PasswordEncoder delegate;
+  private final int cost;
+  private final boolean allowDowngrade;
+  private final ThreadPoolExecutor executor;
+  private final ThreadPoolExecutor rehashExecutor;
+  private final Timer encodeTimer;
+  private final Timer matchesTimer;
+  private final Timer rehashTimer;
+  private final Counter rejections;
+
+  @Autowired
+  public BoundedPasswordEncoder(@Value("${oc.app.auth.hashPoolSize}") int poolSize,
+                                @Value("${oc.app.auth.hashQueueCapacity}") int queueCapacity,
+                                @Value("${oc.app.auth.rehashQueueCapacity}") int rehashQueueCapacity,
+                                @Value("${oc.app.auth.bcryptTargetMs}") long bcryptTargetMs,
+                                @Value("${oc.app.auth.bcryptMinCost}") int bcryptMinCost,
+                                @Value("${oc.app.auth.bcryptMaxCost}") int bcryptMaxCost,
+                                @Value("${oc.app.auth.bcryptAllowDowngrade}") boolean bcryptAllowDowngrade,
+                                MeterRegistry meterRegistry) {
+    this(BCryptCalibration.calibrate(bcryptTargetMs, bcryptMinCost, bcryptMaxCost), bcryptAllowDowngrade,
+        poolSize, queueCapacity, rehashQueueCapacity, meterRegistry);
+  }
+
+  private BoundedPasswordEncoder(BCryptCalibration calibration, boolean allowDowngrade, int poolSize, int queueCapacity,
+                                 int rehashQueueCapacity, MeterRegistry meterRegistry) {
+    this(new BCryptPasswordEncoder(calibration.getCost()), calibration, allowDowngrade, poolSize, queueCapacity,
+        rehashQueueCapacity, meterRegistry);
+  }
+
+  BoundedPasswordEncoder(PasswordEncoder delegate, BCryptCalibration calibration, boolean allowDowngrade,
+                         int poolSize, int queueCapacity, int rehashQueueCapacity, MeterRegistry meterRegistry) {
+    this.delegate = delegate;
+    this.cost = calibration.getCost();
+    this.allowDowngrade = allowDowngrade;
+
+    this.executor = boundedExecutor("password-hashing-", poolSize, queueCapacity);
+    this.rehashExecutor = boundedExecutor("password-rehashing-", 1, rehashQueueCapacity);
+
+    ExecutorServiceMetrics.monitor(meterRegistry, this.executor, "passwordHashing");
+    ExecutorServiceMetrics.monitor(meterRegistry, this.rehashExecutor, "passwordRehashing");
+    this.encodeTimer = Timer.builder("auth.password.hashing").tag("operation", "encode").register(meterRegistry);
+    this.matchesTimer = Timer.builder("auth.password.hashing").tag("operation", "matches").register(meterRegistry);
+    this.rehashTimer = Timer.builder("auth.password.hashing").tag("operation", "rehash").register(meterRegistry);
+    this.rejections = Counter.builder("auth.password.hashing.rejected").register(meterRegistry);
+    Gauge.builder("auth.password.bcrypt.cost", calibration, BCryptCalibration::getCost).register(meterRegistry);
+    Gauge.builder("auth.password.bcrypt.calibrated.time", calibration, BCryptCalibration::getHashMillis)
+        .baseUnit("milliseconds")
+        .register(meterRegistry);
+  }
+
+  @Override
+  public String encode(CharSequence rawPassword) {
+    return this.submit(() -> this.encodeTimer.recordCallable(() -> this.delegate.encode(rawPassword)));
+  }
+
+  @Override
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    return this.submit(() -> this.matchesTimer.recordCallable(() -> this.delegate.matches(rawPassword, encodedPassword)));
+  }
+
+  /**
+   * True when a BCrypt hash was made with a lower cost than the calibrated one. A higher cost is only
+   * flagged when downgrades are allowed: a slower host at startup must not weaken stored hashes.
+   */
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    int encodedCost = BCryptCalibration.costOf(encodedPassword);
+    if (encodedCost == -1) {
+      return false;
+    }
+    return encodedCost < this.cost || (this.allowDowngrade && encodedCost > this.cost);
+  }
+
+  /**
+   * Encodes on the rehash thread without waiting. Returns null, and drops the work, when its queue is
+   * full: it must never delay a login. Whatever is chained on the future should not run on that thread.
+   */
+  public CompletableFuture<String> encodeInBackground(CharSequence rawPassword) {
+    try {
+      return CompletableFuture.supplyAsync(() -> this.rehashTimer.record(() -> this.delegate.encode(rawPassword)),
+          this.rehashExecutor);
+    } catch (RejectedExecutionException e) {
+      return null;
+    }
+  }
+
+  public int getCost() {
+    return this.cost;
+  }
+
+  @Override
+  public void destroy() {
+    this.executor.shutdown();
+    this.rehashExecutor.shutdown();
+  }
+
+  private static ThreadPoolExecutor boundedExecutor(String threadPrefix, int poolSize, int queueCapacity) {
+    AtomicInteger threadCount = new AtomicInteger();
+    return new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity),
+        runnable -> {
+          Thread thread = new Thread(runnable, threadPrefix + threadCount.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        },
+        new ThreadPoolExecutor.AbortPolicy());
+  }
+
+  private <T> T submit(Callable<T> task) {
+    try {
+      return this.executor.submit(task).get();
+    } catch (RejectedExecutionException e) {
+      this.rejections.increment();
+      throw new ServiceUnavailableException("Password hashing pool is full");
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ServiceUnavailableException("Interrupted while waiting for password hashing");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IllegalStateException(cause);
+    }
+  }
+}
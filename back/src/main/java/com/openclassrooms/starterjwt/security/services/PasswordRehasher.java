@@ -0,0 +1,124 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import com.openclassrooms.starterjwt.repository.UserRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Brings stored hashes to the calibrated BCrypt cost as users log in, the only time the raw
+ * password is known. The new hash is computed on the rehash thread of the encoder, away from the
+ * login pool, then written by a thread of its own, so a slow database never holds a hashing thread.
+ * The write only replaces the hash it was derived from, so a concurrent password change always wins.
+ * Outcomes are counted as "auth.password.rehash" tagged by result.
+ */
+@Component
+public class PasswordRehasher implements DisposableBean {
+  private static final Logger logger = LoggerFactory.getLogger(PasswordRehasher.class);
+
+  private final BoundedPasswordEncoder passwordEncoder;
+  private final UserRepository userRepository;
+  private final Executor updates;
+  private final Counter updated;
+  private final Counter stale;
+  private final Counter skipped;
+  private final Counter failed;
+
+  @Autowired
+  public PasswordRehasher(BoundedPasswordEncoder passwordEncoder, UserRepository userRepository,
+                          @Value("${oc.app.auth.rehashQueueCapacity}") int rehashQueueCapacity,
+                          MeterRegistry meterRegistry) {
+    this(passwordEncoder, userRepository, updateExecutor(rehashQueueCapacity), meterRegistry);
+  }
+
+  PasswordRehasher(BoundedPasswordEncoder passwordEncoder, UserRepository userRepository, Executor updates,
+                   MeterRegistry meterRegistry) {
+    this.passwordEncoder = passwordEncoder;
+    this.userRepository = userRepository;
+    this.updates = updates;
+    this.updated = Counter.builder("auth.password.rehash").tag("result", "updated").register(meterRegistry);
+    this.stale = Counter.builder("auth.password.rehash").tag("result", "stale").register(meterRegistry);
+    this.skipped = Counter.builder("auth.password.rehash").tag("result", "skipped").register(meterRegistry);
+    this.failed = Counter.builder("auth.password.rehash").tag("result", "failed").register(meterRegistry);
+  }
+
+  /**
+   * Schedules a rehash when the user's stored hash is below the calibrated cost.
+   * A busy rehash queue skips it: the next login will try again.
+   */
+  public void rehashIfNeeded(UserDetailsImpl user, String rawPassword) {
+    String oldPassword = user.getPassword();
+    if (!this.passwordEncoder.upgradeEncoding(oldPassword)) {
+      return;
+    }
+
+    CompletableFuture<String> newPassword = this.passwordEncoder.encodeInBackground(rawPassword);
+    if (newPassword == null) {
+      this.skipped.increment();
+      return;
+    }
+    newPassword.whenComplete((hash, error) -> {
+      if (error != null) {
+        this.failed.increment();
+        logger.error("Cannot rehash the password of user {}: {}", user.getId(), error.getMessage());
+      } else {
+        this.scheduleUpdate(user.getId(), oldPassword, hash);
+      }
+    });
+  }
+
+  @Override
+  public void destroy() {
+    if (this.updates instanceof ExecutorService) {
+      ((ExecutorService) this.updates).shutdown();
+    }
+  }
+
+  private void scheduleUpdate(Long userId, String oldPassword, String newPassword) {
+    try {
+      this.updates.execute(() -> this.update(userId, oldPassword, newPassword));
+    } catch (RejectedExecutionException e) {
+      this.skipped.increment();
+    }
+  }
+
+  private void update(Long userId, String oldPassword, String newPassword) {
+    try {
+      if (this.userRepository.updatePassword(userId, oldPassword, newPassword) == 1) {
+        this.updated.increment();
+      } else {
+        this.stale.increment();
+      }
+    } catch (DataAccessException e) {
+      this.failed.increment();
+      logger.error("Cannot rehash the password of user {}: {}", userId, e.getMessage());
+    }
+  }
+
+  private static ThreadPoolExecutor updateExecutor(int queueCapacity) {
+    return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity),
+        runnable -> {
+          Thread thread = new Thread(runnable, "password-rehash-update");
+          thread.setDaemon(true);
+          return thread;
+        },
+        new ThreadPoolExecutor.AbortPolicy());
+  }
+}
@@ -0,0 +1,61 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import java.util.List;
+import java.util.Locale;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import com.openclassrooms.starterjwt.repository.UserRepository;
+
+/**
+ * Bloom filter of the registered emails (lower-cased), so that registering a fresh email
+ * skips the existence query. A hit may be false and is confirmed by the database; the
+ * USERS.email unique constraint stays the source of truth. Deleted users remain in the filter
+ * as harmless false positives until the next restart.
+ * Until the filter is seeded, every email is reported as possibly registered.
+ */
+@Component
+public class RegisteredEmails {
+  private static final Logger logger = LoggerFactory.getLogger(RegisteredEmails.class);
+
+  private final UserRepository userRepository;
+  private final BloomFilter filter;
+  private volatile boolean seeded;
+
+  public RegisteredEmails(UserRepository userRepository,
+                          @Value("${oc.app.registeredEmails.expectedEntries}") long expectedEntries,
+                          @Value("${oc.app.registeredEmails.falsePositiveRate}") double falsePositiveRate) {
+    this.userRepository = userRepository;
+    this.filter = new BloomFilter(expectedEntries, falsePositiveRate);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void seed() {
+    try {
+      List<String> emails = this.userRepository.findAllEmails();
+      emails.forEach(this::add);
+      this.seeded = true;
+      logger.info("{} registered emails loaded", emails.size());
+    } catch (DataAccessException e) {
+      logger.error("Cannot load the registered emails: {}", e.getMessage());
+    }
+  }
+
+  public boolean mightBeRegistered(String email) {
+    return !this.seeded || this.filter.mightContain(key(email));
+  }
+
+  public void add(String email) {
+    this.filter.put(key(email));
+  }
+
+  private static String key(String email) {
+    return email.toLowerCase(Locale.ROOT);
+  }
+}
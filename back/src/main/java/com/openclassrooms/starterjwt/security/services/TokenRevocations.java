@@ -0,0 +1,155 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.openclassrooms.starterjwt.models.RevokedToken;
+import com.openclassrooms.starterjwt.repository.RevokedTokenRepository;
+
+/**
+ * Tokens that must no longer be accepted: single tokens by jti, or every token of a user issued
+ * up to the revocation. Principals rebuilt from token claims never reach the database, so this is
+ * what stops the tokens of a deleted user or of a logout.
+ *
+ * Revocations are rare and checked on every request: a Bloom filter answers the common "not revoked"
+ * case with a few bit probes, the exact map is only read on a (possibly false) positive.
+ * Rows are persisted in REVOKED_TOKENS and reloaded at startup; expired ones are pruned periodically,
+ * which also rebuilds the filter since a Bloom filter cannot forget.
+ */
+@Component
+public class TokenRevocations {
+  private static final Logger logger = LoggerFactory.getLogger(TokenRevocations.class);
+
+  private static final String TOKEN_KEY = "t:";
+  private static final String USER_KEY = "u:";
+
+  private final RevokedTokenRepository revokedTokenRepository;
+  private final long jwtExpirationMs;
+  private final long expectedEntries;
+  private final double falsePositiveRate;
+
+  // key → revocation; for users the revokedAt matters, for tokens only the presence
+  private final Map<String, RevokedToken> revocations = new ConcurrentHashMap<>();
+  private volatile BloomFilter filter;
+  private boolean loaded;
+
+  public TokenRevocations(RevokedTokenRepository revokedTokenRepository,
+                          @Value("${oc.app.jwtExpirationMs}") long jwtExpirationMs,
+                          @Value("${oc.app.revocation.expectedEntries}") long expectedEntries,
+                          @Value("${oc.app.revocation.falsePositiveRate}") double falsePositiveRate) {
+    this.revokedTokenRepository = revokedTokenRepository;
+    this.jwtExpirationMs = jwtExpirationMs;
+    this.expectedEntries = expectedEntries;
+    this.falsePositiveRate = falsePositiveRate;
+    this.filter = new BloomFilter(expectedEntries, falsePositiveRate);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public synchronized void load() {
+    try {
+      for (RevokedToken revokedToken : this.revokedTokenRepository.findByExpiresAtAfter(Instant.now())) {
+        this.add(revokedToken);
+      }
+      this.loaded = true;
+      logger.info("{} token revocations loaded", this.revocations.size());
+    } catch (DataAccessException e) {
+      // Retried by the next prune
+      logger.error("Cannot load the token revocations: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * Revokes every token issued to the user so far. The row joins the current transaction (if any)
+   * and the revocation applies once it commits.
+   */
+  public void revokeUser(Long userId) {
+    Instant now = Instant.now();
+    this.persist(RevokedToken.builder()
+        .userId(userId)
+        .revokedAt(now)
+        .expiresAt(now.plusMillis(this.jwtExpirationMs))
+        .build());
+  }
+
+  /**
+   * Revokes a single token until its expiration, with the same transaction rules as revokeUser.
+   */
+  public void revokeToken(String tokenId, Date expiresAt) {
+    this.persist(RevokedToken.builder()
+        .tokenId(tokenId)
+        .revokedAt(Instant.now())
+        .expiresAt(expiresAt.toInstant())
+        .build());
+  }
+
+  public boolean isRevoked(String tokenId, Long userId, Date issuedAt) {
+    BloomFilter current = this.filter;
+
+    if (userId != null && current.mightContain(USER_KEY + userId)) {
+      RevokedToken revocation = this.revocations.get(USER_KEY + userId);
+      // iat has a one second precision: a token of the same second as the revocation is rejected
+      if (revocation != null && (issuedAt == null || !issuedAt.toInstant().isAfter(revocation.getRevokedAt()))) {
+        return true;
+      }
+    }
+
+    return tokenId != null && current.mightContain(TOKEN_KEY + tokenId)
+        && this.revocations.containsKey(TOKEN_KEY + tokenId);
+  }
+
+  @Scheduled(fixedDelayString = "${oc.app.revocation.pruneMs}", initialDelayString = "${oc.app.revocation.pruneMs}")
+  public synchronized void prune() {
+    if (!this.loaded) {
+      this.load();
+    }
+
+    Instant now = Instant.now();
+    int deleted = this.revokedTokenRepository.deleteExpired(now);
+    this.revocations.values().removeIf(revocation -> !revocation.getExpiresAt().isAfter(now));
+
+    BloomFilter rebuilt = new BloomFilter(Math.max(this.expectedEntries, this.revocations.size() * 2L), this.falsePositiveRate);
+    for (String key : this.revocations.keySet()) {
+      rebuilt.put(key);
+    }
+    this.filter = rebuilt;
+    logger.debug("{} expired token revocations pruned", deleted);
+  }
+
+  private void persist(RevokedToken revokedToken) {
+    this.revokedTokenRepository.save(revokedToken);
+
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          add(revokedToken);
+        }
+      });
+    } else {
+      this.add(revokedToken);
+    }
+  }
+
+  private synchronized void add(RevokedToken revokedToken) {
+    String key = revokedToken.getTokenId() != null
+        ? TOKEN_KEY + revokedToken.getTokenId()
+        : USER_KEY + revokedToken.getUserId();
+    // Map first: a filter hit must find the entry
+    this.revocations.merge(key, revokedToken,
+        (previous, next) -> next.getRevokedAt().isAfter(previous.getRevokedAt()) ? next : previous);
+    this.filter.put(key);
+  }
+}
@@ -0,0 +1,76 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Short-lived principals of the database-backed authentication path, keyed by email.
+ * Only AuthTokenFilter reads through it: the login keeps checking the password against fresh data,
+ * so the cached copies carry no password at all.
+ * Hits and misses are published under the "userDetails" cache name.
+ */
+@Component
+public class UserDetailsCache {
+  private final Cache<String, UserDetailsImpl> cache;
+
+  public UserDetailsCache(@Value("${oc.app.userDetailsCacheMaxSize}") long maxSize,
+                          @Value("${oc.app.userDetailsCacheTtlMs}") long ttlMs,
+                          MeterRegistry meterRegistry) {
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterWrite(ttlMs, TimeUnit.MILLISECONDS)
+        .recordStats()
+        .build();
+
+    CaffeineCacheMetrics.monitor(meterRegistry, this.cache, "userDetails");
+  }
+
+  /**
+   * Returns the cached principal or loads it. A loader failure (unknown user) is not cached.
+   */
+  public UserDetailsImpl get(String email, Function<String, UserDetailsImpl> loader) {
+    return this.cache.get(email, key -> withoutPassword(loader.apply(key)));
+  }
+
+  /**
+   * Drops the user now and again once the current transaction completes, like the session cache.
+   */
+  public void evictUser(Long userId) {
+    this.invalidate(userId);
+
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCompletion(int status) {
+          invalidate(userId);
+        }
+      });
+    }
+  }
+
+  private void invalidate(Long userId) {
+    // Keyed by email: deletions are rare enough to scan the entries
+    this.cache.asMap().values().removeIf(userDetails -> userId.equals(userDetails.getId()));
+  }
+
+  private static UserDetailsImpl withoutPassword(UserDetailsImpl userDetails) {
+    return UserDetailsImpl.builder()
+        .id(userDetails.getId())
+        .username(userDetails.getUsername())
+        .firstName(userDetails.getFirstName())
+        .lastName(userDetails.getLastName())
+        .admin(userDetails.getAdmin())
+        .build();
+  }
+}
@@ -1,10 +1,12 @@
 package com.openclassrooms.starterjwt.security.services;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Objects;
 
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
@@ -19,6 +21,9 @@ import lombok.Getter;
 public class UserDetailsImpl implements UserDetails {
   private static final long serialVersionUID = 1L;
 
+  private static final Collection<GrantedAuthority> ADMIN_AUTHORITIES =
+      Collections.singleton(new SimpleGrantedAuthority("ROLE_ADMIN"));
+
   private Long id;
 
   private String username;
@@ -33,7 +38,7 @@ public class UserDetailsImpl implements UserDetails {
   private String password;  
   
   public Collection<? extends GrantedAuthority> getAuthorities() {        
-      return new HashSet<GrantedAuthority>();
+      return Boolean.TRUE.equals(admin) ? ADMIN_AUTHORITIES : new HashSet<GrantedAuthority>();
   }
 
   @Override
@@ -23,12 +23,28 @@ public class UserDetailsServiceImpl implements UserDetailsService {
     User user = userRepository.findByEmail(username)
         .orElseThrow(() -> new UsernameNotFoundException("User Not Found with email: " + username));
 
+    return build(user);
+  }
+
+  /**
+   * Same principal as loadUserByUsername, for callers that only know the user id (token refresh).
+   */
+  @Transactional
+  public UserDetailsImpl loadUserById(Long id) throws UsernameNotFoundException {
+    User user = userRepository.findById(id)
+        .orElseThrow(() -> new UsernameNotFoundException("User Not Found with id: " + id));
+
+    return build(user);
+  }
+
+  private static UserDetailsImpl build(User user) {
     return UserDetailsImpl
             .builder()
             .id(user.getId())
             .username(user.getEmail())
             .lastName(user.getLastName())
             .firstName(user.getFirstName())
+            .admin(user.isAdmin())
             .password(user.getPassword())
             .build();
   }
@@ -0,0 +1,121 @@
+package com.openclassrooms.starterjwt.services;
+
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.openclassrooms.starterjwt.models.RefreshToken;
+import com.openclassrooms.starterjwt.repository.RefreshTokenRepository;
+import com.openclassrooms.starterjwt.security.TokenHashes;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+
+@Service
+@Log4j2
+public class RefreshTokenService {
+    private static final SecureRandom random = new SecureRandom();
+
+    private final RefreshTokenRepository refreshTokenRepository;
+
+    private final UserDetailsServiceImpl userDetailsService;
+
+    @Value("${oc.app.refreshTokenExpirationMs}")
+    private long refreshTokenExpirationMs;
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository, UserDetailsServiceImpl userDetailsService) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.userDetailsService = userDetailsService;
+    }
+
+    /**
+     * Starts a new family of refresh tokens for the user and returns its first token.
+     */
+    public String issue(Long userId) {
+        return this.create(userId, UUID.randomUUID().toString(), Instant.now());
+    }
+
+    /**
+     * Exchanges a refresh token for the next one of its family and the current principal.
+     * Returns null when the token is unknown, expired, revoked or already used; reusing a used token
+     * revokes the whole family, since either the legitimate client or an attacker holds a copy.
+     */
+    @Transactional
+    public Rotation rotate(String refreshToken) {
+        Instant now = Instant.now();
+        RefreshToken current = this.refreshTokenRepository.findByTokenHash(TokenHashes.sha256(refreshToken)).orElse(null);
+        if (current == null || current.isRevoked() || !current.getExpiresAt().isAfter(now)) {
+            return null;
+        }
+
+        if (this.refreshTokenRepository.markUsed(current.getId(), now) == 0) {
+            this.refreshTokenRepository.revokeFamily(current.getFamilyId());
+            log.warn("Refresh token reused, family {} of user {} revoked", current.getFamilyId(), current.getUserId());
+            return null;
+        }
+
+        UserDetailsImpl userDetails;
+        try {
+            userDetails = this.userDetailsService.loadUserById(current.getUserId());
+        } catch (UsernameNotFoundException e) {
+            return null;
+        }
+
+        return new Rotation(userDetails, this.create(current.getUserId(), current.getFamilyId(), now));
+    }
+
+    /**
+     * Ends the refresh side of a session on logout: the family of the given refresh token when it
+     * belongs to the user, otherwise every refresh token of the user, since the client did not say which.
+     */
+    @Transactional
+    public void revoke(Long userId, String refreshToken) {
+        if (refreshToken != null) {
+            RefreshToken current = this.refreshTokenRepository.findByTokenHash(TokenHashes.sha256(refreshToken)).orElse(null);
+            if (current != null && current.getUserId().equals(userId)) {
+                this.refreshTokenRepository.revokeFamily(current.getFamilyId());
+                return;
+            }
+        }
+        this.refreshTokenRepository.revokeUser(userId);
+    }
+
+    @Scheduled(fixedDelayString = "${oc.app.refreshTokenPruneMs}", initialDelayString = "${oc.app.refreshTokenPruneMs}")
+    public void prune() {
+        int deleted = this.refreshTokenRepository.deleteExpired(Instant.now());
+        log.debug("{} expired refresh tokens pruned", deleted);
+    }
+
+    private String create(Long userId, String familyId, Instant now) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        this.refreshTokenRepository.save(RefreshToken.builder()
+                .tokenHash(TokenHashes.sha256(token))
+                .familyId(familyId)
+                .userId(userId)
+                .createdAt(now)
+                .expiresAt(now.plusMillis(this.refreshTokenExpirationMs))
+                .build());
+
+        return token;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Rotation {
+        private final UserDetailsImpl userDetails;
+        private final String refreshToken;
+    }
+}
@@ -1,12 +1,20 @@
 package com.openclassrooms.starterjwt.services;
 
+import com.openclassrooms.starterjwt.cache.SessionCache;
+import com.openclassrooms.starterjwt.cache.SessionSnapshot;
+import com.openclassrooms.starterjwt.dto.SessionSummaryDto;
 import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.exception.NotFoundException;
 import com.openclassrooms.starterjwt.models.Session;
-import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.pagination.KeysetCursor;
+import com.openclassrooms.starterjwt.pagination.KeysetPage;
+import com.openclassrooms.starterjwt.repository.SessionFilter;
 import com.openclassrooms.starterjwt.repository.SessionRepository;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -17,62 +25,136 @@ public class SessionService {
 
     private final UserRepository userRepository;
 
-    public SessionService(SessionRepository sessionRepository, UserRepository userRepository) {
+    private final SessionCache sessionCache;
+
+    @Value("${oc.app.session.defaultPageSize}")
+    private int defaultPageSize;
+
+    @Value("${oc.app.session.maxPageSize}")
+    private int maxPageSize;
+
+    public SessionService(SessionRepository sessionRepository, UserRepository userRepository, SessionCache sessionCache) {
         this.sessionRepository = sessionRepository;
         this.userRepository = userRepository;
+        this.sessionCache = sessionCache;
     }
 
     public Session create(Session session) {
-        return this.sessionRepository.save(session);
+        Session created = this.sessionRepository.save(session);
+        this.sessionCache.evict(created.getId());
+        return created;
     }
 
     public void delete(Long id) {
         this.sessionRepository.deleteById(id);
+        this.sessionCache.evict(id);
     }
 
     public List<Session> findAll() {
-        return this.sessionRepository.findAll();
+        return this.sessionRepository.findAllWithUsers();
+    }
+
+    /**
+     * Returns the sessions matching the filter, ordered by (date, id), that come after the given cursor.
+     * A missing limit falls back to the default page size, a too large one is capped.
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<Session> findPage(SessionFilter filter, String after, Integer limit) {
+        int pageSize = this.resolvePageSize(limit);
+        KeysetCursor cursor = KeysetCursor.decode(after);
+
+        // One extra row tells whether there is a next page without a count query
+        List<Session> sessions = this.sessionRepository.findPage(filter, cursor, pageSize + 1);
+
+        KeysetPage<Session> page = KeysetPage.of(sessions, pageSize, session -> new KeysetCursor(session.getDate(), session.getId()));
+
+        // Fetch joining the users in the paged query would make Hibernate page in memory.
+        // Load them in a second query instead: it fills the collections of the sessions
+        // already in the persistence context of this transaction.
+        if (!page.getItems().isEmpty()) {
+            this.sessionRepository.findWithUsersByIdIn(
+                    page.getItems().stream().map(Session::getId).collect(Collectors.toList()));
+        }
+
+        return page;
+    }
+
+    /**
+     * Same filtering and paging as {@link #findPage(SessionFilter, String, Integer)} but reads only
+     * the listing columns and a participant count, without loading any entity.
+     */
+    public KeysetPage<SessionSummaryDto> findSummaryPage(SessionFilter filter, String after, Integer limit) {
+        int pageSize = this.resolvePageSize(limit);
+        KeysetCursor cursor = KeysetCursor.decode(after);
+
+        List<SessionSummaryDto> summaries = this.sessionRepository.findSummaryPage(filter, cursor, pageSize + 1);
+
+        return KeysetPage.of(summaries, pageSize, summary -> new KeysetCursor(summary.getDate(), summary.getId()));
     }
 
     public Session getById(Long id) {
-        return this.sessionRepository.findById(id).orElse(null);
+        return this.sessionRepository.findWithUsersById(id).orElse(null);
+    }
+
+    /**
+     * Read-through view of {@link #getById(Long)} for the detail endpoint, served from the cache when possible.
+     */
+    public SessionSnapshot getSnapshotById(Long id) {
+        return this.sessionCache.get(id, key -> this.sessionRepository.findWithUsersById(key)
+                .map(SessionSnapshot::of)
+                .orElse(null));
+    }
+
+    /**
+     * Current ETag of the session listings and details.
+     */
+    public String etag() {
+        return this.sessionCache.etag();
     }
 
     public Session update(Long id, Session session) {
         session.setId(id);
-        return this.sessionRepository.save(session);
+        Session updated = this.sessionRepository.save(session);
+        this.sessionCache.evict(id);
+        return updated;
     }
 
+    @Transactional
     public void participate(Long id, Long userId) {
-        Session session = this.sessionRepository.findById(id).orElse(null);
-        User user = this.userRepository.findById(userId).orElse(null);
-        if (session == null || user == null) {
+        if (!this.sessionRepository.existsById(id) || !this.userRepository.existsById(userId)) {
             throw new NotFoundException();
         }
 
-        boolean alreadyParticipate = session.getUsers().stream().anyMatch(o -> o.getId().equals(userId));
-        if(alreadyParticipate) {
+        try {
+            this.sessionRepository.addParticipant(id, userId);
+        } catch (DataIntegrityViolationException e) {
+            // (session_id, user_id) is unique: the user already participates,
+            // possibly through a concurrent request
             throw new BadRequestException();
         }
-
-        session.getUsers().add(user);
-
-        this.sessionRepository.save(session);
+        this.sessionCache.evict(id);
     }
 
+    @Transactional
     public void noLongerParticipate(Long id, Long userId) {
-        Session session = this.sessionRepository.findById(id).orElse(null);
-        if (session == null) {
-            throw new NotFoundException();
+        if (this.sessionRepository.removeParticipant(id, userId) == 0) {
+            // Nothing deleted: tell an unknown session from a user who was not participating
+            if (!this.sessionRepository.existsById(id)) {
+                throw new NotFoundException();
+            }
+            throw new BadRequestException();
         }
+        this.sessionCache.evict(id);
+    }
 
-        boolean alreadyParticipate = session.getUsers().stream().anyMatch(o -> o.getId().equals(userId));
-        if(!alreadyParticipate) {
+    private int resolvePageSize(Integer limit) {
+        if (limit == null) {
+            return this.defaultPageSize;
+        }
+        if (limit <= 0) {
             throw new BadRequestException();
         }
 
-        session.setUsers(session.getUsers().stream().filter(user -> !user.getId().equals(userId)).collect(Collectors.toList()));
-
-        this.sessionRepository.save(session);
+        return Math.min(limit, this.maxPageSize);
     }
 }
@@ -1,24 +1,75 @@
 package com.openclassrooms.starterjwt.services;
 
+import com.openclassrooms.starterjwt.cache.EntityTags;
+import com.openclassrooms.starterjwt.cache.TeacherCatalog;
 import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 
+/**
+ * Teachers almost never change: they are served from an in-memory {@link TeacherCatalog},
+ * loaded on first use and reloaded periodically or on demand.
+ */
 @Service
+@Log4j2
 public class TeacherService {
     private final TeacherRepository teacherRepository;
 
+    private volatile TeacherCatalog catalog;
+
     public TeacherService(TeacherRepository teacherRepository) {
         this.teacherRepository = teacherRepository;
     }
 
     public List<Teacher> findAll() {
-        return this.teacherRepository.findAll();
+        return this.getCatalog().getTeachers();
     }
 
     public Teacher findById(Long id) {
-        return this.teacherRepository.findById(id).orElse(null);
+        Teacher teacher = this.getCatalog().get(id);
+        if (teacher != null) {
+            return teacher;
+        }
+
+        // Possibly a teacher added since the last refresh
+        teacher = this.teacherRepository.findById(id).orElse(null);
+        if (teacher != null) {
+            this.reload();
+        }
+        return teacher;
+    }
+
+    public TeacherCatalog getCatalog() {
+        TeacherCatalog current = this.catalog;
+        return current != null ? current : this.load();
+    }
+
+    /**
+     * ETag of the teacher responses, moving with the catalog generation.
+     */
+    public String etag() {
+        return EntityTags.of("teachers", this.getCatalog().getGeneration());
+    }
+
+    @Scheduled(fixedDelayString = "${oc.app.teacher.catalogRefreshMs}", initialDelayString = "${oc.app.teacher.catalogRefreshMs}")
+    public void reload() {
+        this.load();
+    }
+
+    private synchronized TeacherCatalog load() {
+        List<Teacher> teachers = this.teacherRepository.findAll(Sort.by("id"));
+        TeacherCatalog current = this.catalog;
+        TeacherCatalog loaded = current == null ? TeacherCatalog.of(teachers) : current.refreshedWith(teachers);
+
+        if (loaded != current) {
+            log.info("Teacher catalog generation {} loaded with {} teachers", loaded.getGeneration(), teachers.size());
+            this.catalog = loaded;
+        }
+        return loaded;
     }
 }
@@ -2,21 +2,40 @@ package com.openclassrooms.starterjwt.services;
 
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.services.TokenRevocations;
+import com.openclassrooms.starterjwt.security.services.UserDetailsCache;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
 
 @Service
 public class UserService {
     private final UserRepository userRepository;
 
-    public UserService(UserRepository userRepository) {
+    private final TokenRevocations tokenRevocations;
+
+    private final UserDetailsCache userDetailsCache;
+
+    public UserService(UserRepository userRepository, TokenRevocations tokenRevocations, UserDetailsCache userDetailsCache) {
         this.userRepository = userRepository;
+        this.tokenRevocations = tokenRevocations;
+        this.userDetailsCache = userDetailsCache;
     }
 
+    @Transactional
     public void delete(Long id) {
         this.userRepository.deleteById(id);
+        this.tokenRevocations.revokeUser(id);
+        this.userDetailsCache.evictUser(id);
     }
 
     public User findById(Long id) {
         return this.userRepository.findById(id).orElse(null);
     }
+
+    public List<User> findAllById(Collection<Long> ids) {
+        return this.userRepository.findAllById(ids);
+    }
 }
@@ -0,0 +1,162 @@
+package com.openclassrooms.starterjwt.cache;
+
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+@DisplayName("SessionCache Test")
+public class SessionCacheTest {
+    private SimpleMeterRegistry meterRegistry;
+    private SessionCache sessionCache;
+    private AtomicInteger loads;
+    private Function<Long, SessionSnapshot> loader;
+
+    @BeforeEach
+    public void prepareTestData() {
+        meterRegistry = new SimpleMeterRegistry();
+        sessionCache = new SessionCache(10, 60000, meterRegistry);
+        loads = new AtomicInteger();
+        loader = id -> {
+            loads.incrementAndGet();
+            return id > 100 ? null : SessionSnapshot.of(session(id));
+        };
+    }
+
+    @AfterEach
+    public void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    // ***** GET *****
+
+    @Test
+    @DisplayName("get() should load a session once and then serve it from the cache")
+    public void get_twice_shouldLoadOnceAndCountHitAndMiss() {
+        // Act
+        SessionSnapshot first = sessionCache.get(1L, loader);
+        SessionSnapshot second = sessionCache.get(1L, loader);
+        
+        // Assert
+        assertThat(second).isSameAs(first);
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "sessions").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "sessions").tag("result", "miss").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("get() should not cache unknown sessions")
+    public void get_withUnknownSession_shouldNotCacheNull() {
+        // Act
+        assertThat(sessionCache.get(666L, loader)).isNull();
+        assertThat(sessionCache.get(666L, loader)).isNull();
+        
+        // Assert
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    // ***** EVICT *****
+
+    @Test
+    @DisplayName("evict() should make the next get() reload the session")
+    public void evict_shouldReloadOnNextGet() {
+        // Arrange
+        SessionSnapshot first = sessionCache.get(1L, loader);
+        
+        // Act
+        sessionCache.evict(1L);
+        SessionSnapshot second = sessionCache.get(1L, loader);
+        
+        // Assert
+        assertThat(second).isNotSameAs(first);
+        assertThat(loads.get()).isEqualTo(2);
+        assertThat(meterRegistry.get("sessions.cache.invalidations").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("evict() inside a transaction should evict again once the transaction completes")
+    public void evict_insideTransaction_shouldEvictAgainAfterCompletion() {
+        // Arrange
+        TransactionSynchronizationManager.initSynchronization();
+        sessionCache.evict(1L);
+        // A concurrent read caches the state preceding the commit
+        SessionSnapshot stale = sessionCache.get(1L, loader);
+        
+        // Act
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+        
+        // Assert
+        assertThat(sessionCache.get(1L, loader)).isNotSameAs(stale);
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("clear() should drop every cached session")
+    public void clear_shouldDropEverySession() {
+        // Arrange
+        sessionCache.get(1L, loader);
+        sessionCache.get(2L, loader);
+        
+        // Act
+        sessionCache.clear();
+        sessionCache.get(1L, loader);
+        sessionCache.get(2L, loader);
+        
+        // Assert
+        assertThat(loads.get()).isEqualTo(4);
+    }
+
+    // ***** SNAPSHOT *****
+
+    @Test
+    @DisplayName("SessionSnapshot should not be modifiable through its getters")
+    public void snapshot_shouldBeImmutable() {
+        // Arrange
+        Session session = session(1L);
+        SessionSnapshot snapshot = SessionSnapshot.of(session);
+        
+        // Act
+        snapshot.getDate().setTime(0L);
+        session.getDate().setTime(0L);
+        session.getUsers().clear();
+        
+        // Assert
+        assertThat(snapshot.getDate()).isEqualTo(new Date(1000L));
+        assertThat(snapshot.getUsers()).containsExactly(2L, 3L);
+        assertThatThrownBy(() -> snapshot.getUsers().add(4L))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    private Session session(Long id) {
+        List<User> users = new ArrayList<>();
+        users.add(new User().setId(2L));
+        users.add(new User().setId(3L));
+        
+        return new Session()
+            .setId(id)
+            .setName("Yoga")
+            .setDescription("Cours de yoga")
+            .setDate(new Date(1000L))
+            .setTeacher(new Teacher().setId(1L))
+            .setUsers(users);
+    }
+}
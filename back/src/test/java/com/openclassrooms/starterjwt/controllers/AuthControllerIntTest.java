@@ -12,8 +12,13 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.jayway.jsonpath.JsonPath;
+import com.openclassrooms.starterjwt.utils.TestAuthUtils;
+
 @SpringBootTest
 @AutoConfigureMockMvc
 @Transactional
@@ -173,4 +178,97 @@ public class AuthControllerIntTest {
             .andExpect(jsonPath("$.lastName").value("Lecastor"))
             .andExpect(jsonPath("$.admin").value(false));
     }
+
+    // ***** LOGOUT *****
+
+    // Not transactional: the revocation only applies once its row is committed
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("POST /api/auth/logout should revoke the token of the request")
+    public void logout_withValidToken_shouldRevokeToken() throws Exception {
+        String token = TestAuthUtils.authenticate(mockMvc, "hugo@studio.com", "password");
+        
+        mockMvc.perform(post("/api/auth/logout")
+            .header("Authorization", token))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.message").value("User logged out successfully!"));
+        
+        mockMvc.perform(get("/api/session")
+            .header("Authorization", token))
+            .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @DisplayName("POST /api/auth/logout without token should return 400 (Bad Request)")
+    public void logout_withoutToken_shouldReturn400() throws Exception {
+        mockMvc.perform(post("/api/auth/logout"))
+            .andExpect(status().isBadRequest());
+    }
+
+    // ***** REFRESH *****
+
+    private String refreshToken(String response) {
+        return JsonPath.read(response, "$.refreshToken");
+    }
+
+    private ResultActions refresh(String refreshToken) throws Exception {
+        return mockMvc.perform(post("/api/auth/refresh")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"refreshToken\":\"" + refreshToken + "\"}"));
+    }
+
+    @Test
+    @DisplayName("POST /api/auth/refresh should rotate the refresh token, and a reused one should revoke its family")
+    public void refresh_shouldRotateAndDetectReuse() throws Exception {
+        String login = mockMvc.perform(post("/api/auth/login")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"email\":\"hugo@studio.com\",\"password\":\"password\"}"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.refreshToken").isNotEmpty())
+            .andReturn().getResponse().getContentAsString();
+        String first = refreshToken(login);
+        
+        String refreshed = refresh(first)
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.token").isNotEmpty())
+            .andExpect(jsonPath("$.username").value("hugo@studio.com"))
+            .andReturn().getResponse().getContentAsString();
+        String second = refreshToken(refreshed);
+        
+        // The first token is used up: replaying it revokes the family, second included
+        refresh(first)
+            .andExpect(status().isUnauthorized())
+            .andExpect(jsonPath("$.message").value("Error: Invalid refresh token!"));
+        refresh(second)
+            .andExpect(status().isUnauthorized());
+    }
+
+    // Not transactional: the access token revocation only applies once its row is committed
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("POST /api/auth/refresh after a logout should return 401 (Unauthorized)")
+    public void refresh_afterLogout_shouldReturn401() throws Exception {
+        String login = mockMvc.perform(post("/api/auth/login")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"email\":\"hugo@studio.com\",\"password\":\"password\"}"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        String refreshToken = refreshToken(login);
+        
+        mockMvc.perform(post("/api/auth/logout")
+            .header("Authorization", "Bearer " + JsonPath.read(login, "$.token"))
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"refreshToken\":\"" + refreshToken + "\"}"))
+            .andExpect(status().isOk());
+        
+        refresh(refreshToken)
+            .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @DisplayName("POST /api/auth/refresh with unknown token should return 401 (Unauthorized)")
+    public void refresh_withUnknownToken_shouldReturn401() throws Exception {
+        refresh("unknown")
+            .andExpect(status().isUnauthorized());
+    }
 }
@@ -9,6 +9,8 @@ import org.mockito.Mock;
 import org.mockito.InjectMocks;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -16,16 +18,27 @@ import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import com.openclassrooms.starterjwt.exception.ServiceUnavailableException;
+import com.openclassrooms.starterjwt.exception.TooManyRequestsException;
 import com.openclassrooms.starterjwt.payload.request.LoginRequest;
+import com.openclassrooms.starterjwt.payload.request.RefreshRequest;
 import com.openclassrooms.starterjwt.payload.request.SignupRequest;
 import com.openclassrooms.starterjwt.payload.response.JwtResponse;
 import com.openclassrooms.starterjwt.payload.response.MessageResponse;
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.repository.UserRepository;
 import com.openclassrooms.starterjwt.security.jwt.JwtUtils;
+import com.openclassrooms.starterjwt.security.jwt.VerifiedTokenCache;
+import com.openclassrooms.starterjwt.security.ratelimit.AuthRateLimits;
+import com.openclassrooms.starterjwt.security.services.PasswordRehasher;
+import com.openclassrooms.starterjwt.security.services.RegisteredEmails;
+import com.openclassrooms.starterjwt.security.services.TokenRevocations;
 import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
-import java.util.Optional;
+import com.openclassrooms.starterjwt.services.RefreshTokenService;
+import io.jsonwebtoken.Claims;
+import java.util.Date;
 
 @SpringBootTest
 @DisplayName("AuthController Unit Tests")
@@ -42,6 +55,24 @@ public class AuthControllerTest {
     @Mock
     private UserRepository userRepository;
     
+    @Mock
+    private AuthRateLimits authRateLimits;
+    
+    @Mock
+    private VerifiedTokenCache verifiedTokenCache;
+    
+    @Mock
+    private TokenRevocations tokenRevocations;
+    
+    @Mock
+    private RefreshTokenService refreshTokenService;
+    
+    @Mock
+    private RegisteredEmails registeredEmails;
+    
+    @Mock
+    private PasswordRehasher passwordRehasher;
+    
     @InjectMocks
     private AuthController authController;
     
@@ -73,18 +104,7 @@ public class AuthControllerTest {
         when(userDetails.getUsername()).thenReturn(email);
         when(userDetails.getFirstName()).thenReturn(firstName);
         when(userDetails.getLastName()).thenReturn(lastName);
-        
-        // Mock user lookup (admin = true)
-        User user = User.builder()
-            .id(1L)
-            .firstName(firstName)
-            .lastName(lastName)
-            .email(email)
-            .password(password)
-            .admin(true)
-            .build();
-        
-        when(userRepository.findByEmail(email)).thenReturn(Optional.of(user));
+        when(userDetails.getAdmin()).thenReturn(true);
         
         // Act
         ResponseEntity<?> response = authController.authenticateUser(loginRequest);
@@ -105,7 +125,9 @@ public class AuthControllerTest {
         // Verify interactions
         verify(authenticationManager, times(1)).authenticate(any(UsernamePasswordAuthenticationToken.class));
         verify(jwtUtils, times(1)).generateJwtToken(authentication);
-        verify(userRepository, times(1)).findByEmail(email);
+        // The admin flag comes from the principal: the user is not read again
+        verifyNoInteractions(userRepository);
+        verify(passwordRehasher, times(1)).rehashIfNeeded(userDetails, password);
     }
 
     @Test
@@ -134,8 +156,8 @@ public class AuthControllerTest {
     }
 
     @Test
-    @DisplayName("authenticateUser() with user not found should return 200 and admin false")
-    public void authenticateUser_withUserNotFound_shouldReturn200AndAdminFalse() {
+    @DisplayName("authenticateUser() with a principal without admin flag should return 200 and admin false")
+    public void authenticateUser_withoutAdminFlag_shouldReturn200AndAdminFalse() {
         // Arrange
         String email = "test@test.com", password = "password";
         String firstName = "Hugo", lastName = "Lebolide";
@@ -159,9 +181,8 @@ public class AuthControllerTest {
         when(userDetails.getUsername()).thenReturn(email);
         when(userDetails.getFirstName()).thenReturn(firstName);
         when(userDetails.getLastName()).thenReturn(lastName);
-        
-        // Mock user not found → admin defaults to false
-        when(userRepository.findByEmail(email)).thenReturn(Optional.empty());
+        // No admin flag on the principal → admin defaults to false
+        when(userDetails.getAdmin()).thenReturn(null);
         
         // Act
         ResponseEntity<?> response = authController.authenticateUser(loginRequest);
@@ -177,7 +198,7 @@ public class AuthControllerTest {
         
         verify(authenticationManager, times(1)).authenticate(any());
         verify(jwtUtils, times(1)).generateJwtToken(authentication);
-        verify(userRepository, times(1)).findByEmail(email);
+        verifyNoInteractions(userRepository);
     }
 
     // ***** REGISTER USER *****
@@ -195,7 +216,7 @@ public class AuthControllerTest {
         signupRequest.setFirstName(firstName);
         signupRequest.setLastName(lastName);
         
-        when(userRepository.existsByEmail(email)).thenReturn(false);
+        when(registeredEmails.mightBeRegistered(email)).thenReturn(false);
         when(passwordEncoder.encode(password)).thenReturn("encoded-password");
         
         // Act
@@ -208,9 +229,10 @@ public class AuthControllerTest {
         MessageResponse message = (MessageResponse) response.getBody();
         assertThat(message.getMessage()).isEqualTo("User registered successfully!");
         
-        verify(userRepository, times(1)).existsByEmail(email);
+        verify(userRepository, never()).existsByEmail(email);
         verify(passwordEncoder, times(1)).encode(password);
         verify(userRepository, times(1)).save(any(User.class));
+        verify(registeredEmails, times(1)).add(email);
     }
 
     @Test
@@ -226,6 +248,7 @@ public class AuthControllerTest {
         signupRequest.setFirstName(firstName);
         signupRequest.setLastName(lastName);
         
+        when(registeredEmails.mightBeRegistered(email)).thenReturn(true);
         when(userRepository.existsByEmail(email)).thenReturn(true);
         
         // Act
@@ -242,4 +265,204 @@ public class AuthControllerTest {
         verifyNoInteractions(passwordEncoder);
         verify(userRepository, never()).save(any(User.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("registerUser() losing a concurrent signup on the unique constraint should return 400 and a MessageResponse")
+    public void registerUser_withConcurrentDuplicate_shouldReturn400AndMessageResponse() {
+        // Arrange
+        String email = "test@test.com", password = "password";
+        
+        SignupRequest signupRequest = new SignupRequest();
+        signupRequest.setEmail(email);
+        signupRequest.setPassword(password);
+        signupRequest.setFirstName("Hugo");
+        signupRequest.setLastName("Lebolide");
+        
+        when(registeredEmails.mightBeRegistered(email)).thenReturn(true);
+        when(userRepository.existsByEmail(email)).thenReturn(false);
+        when(passwordEncoder.encode(password)).thenReturn("encoded-password");
+        when(userRepository.save(any(User.class))).thenThrow(new DataIntegrityViolationException("UK_USERS_EMAIL"));
+        
+        // Act
+        ResponseEntity<?> response = authController.registerUser(signupRequest);
+        
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        
+        MessageResponse message = (MessageResponse) response.getBody();
+        assertThat(message.getMessage()).isEqualTo("Error: Email is already taken!");
+        
+        verify(registeredEmails, never()).add(email);
+    }
+
+    // ***** BUSY *****
+    @Test
+    @DisplayName("authenticateUser() when password hashing is saturated should be answered with 503, Retry-After and a MessageResponse")
+    public void handleBusy_shouldReturn503WithRetryAfter() {
+        // Arrange
+        ReflectionTestUtils.setField(authController, "busyRetryAfterSeconds", 2L);
+        
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setEmail("test@test.com");
+        loginRequest.setPassword("password");
+        
+        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+            .thenThrow(new ServiceUnavailableException("Password hashing pool is full"));
+        
+        // Act
+        ServiceUnavailableException exception = catchThrowableOfType(
+            () -> authController.authenticateUser(loginRequest), ServiceUnavailableException.class);
+        ResponseEntity<MessageResponse> response = authController.handleBusy(exception);
+        
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+        assertThat(response.getBody().getMessage()).isEqualTo("Error: Authentication is busy, please retry later!");
+        verifyNoInteractions(jwtUtils);
+    }
+
+    // ***** RATE LIMIT *****
+    @Test
+    @DisplayName("authenticateUser() over the per-email limit should be answered with 429 and Retry-After, before any authentication")
+    public void authenticateUser_overEmailLimit_shouldReturn429() {
+        // Arrange
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setEmail("test@test.com");
+        loginRequest.setPassword("password");
+        
+        when(authRateLimits.tryAcquireForEmail("test@test.com")).thenReturn(12L);
+        
+        // Act
+        TooManyRequestsException exception = catchThrowableOfType(
+            () -> authController.authenticateUser(loginRequest), TooManyRequestsException.class);
+        ResponseEntity<MessageResponse> response = authController.handleTooManyRequests(exception);
+        
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("12");
+        assertThat(response.getBody().getMessage()).isEqualTo("Error: Too many requests, please retry later!");
+        verifyNoInteractions(authenticationManager);
+    }
+
+    @Test
+    @DisplayName("registerUser() over the per-email limit should throw TooManyRequestsException before hashing")
+    public void registerUser_overEmailLimit_shouldThrow() {
+        // Arrange
+        SignupRequest signupRequest = new SignupRequest();
+        signupRequest.setEmail("test@test.com");
+        signupRequest.setPassword("password");
+        signupRequest.setFirstName("Hugo");
+        signupRequest.setLastName("Lebolide");
+        
+        when(authRateLimits.tryAcquireForEmail("test@test.com")).thenReturn(3L);
+        
+        // Act + Assert
+        assertThatThrownBy(() -> authController.registerUser(signupRequest))
+            .isInstanceOf(TooManyRequestsException.class);
+        verifyNoInteractions(passwordEncoder, userRepository);
+    }
+
+    // ***** LOGOUT *****
+    @Test
+    @DisplayName("logout() with a valid bearer token should revoke it until its expiration, and its refresh token family")
+    public void logout_withValidToken_shouldRevokeToken() {
+        // Arrange
+        Date expiration = new Date(System.currentTimeMillis() + 3600000);
+        Claims claims = mock(Claims.class);
+        when(claims.getId()).thenReturn("jti");
+        when(claims.getExpiration()).thenReturn(expiration);
+        when(verifiedTokenCache.verify("jwt")).thenReturn(claims);
+        when(jwtUtils.getUserDetailsFromClaims(claims)).thenReturn(UserDetailsImpl.builder().id(2L).build());
+        
+        RefreshRequest refreshRequest = new RefreshRequest();
+        refreshRequest.setRefreshToken("refresh-token");
+        
+        // Act
+        ResponseEntity<?> response = authController.logout("Bearer jwt", refreshRequest);
+        
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        verify(tokenRevocations, times(1)).revokeToken("jti", expiration);
+        verify(refreshTokenService, times(1)).revoke(2L, "refresh-token");
+    }
+
+    @Test
+    @DisplayName("logout() without refresh token should revoke every refresh token of the user")
+    public void logout_withoutRefreshToken_shouldRevokeUserRefreshTokens() {
+        // Arrange
+        Claims claims = mock(Claims.class);
+        when(claims.getId()).thenReturn("jti");
+        when(claims.getExpiration()).thenReturn(new Date(System.currentTimeMillis() + 3600000));
+        when(verifiedTokenCache.verify("jwt")).thenReturn(claims);
+        when(jwtUtils.getUserDetailsFromClaims(claims)).thenReturn(UserDetailsImpl.builder().id(2L).build());
+        
+        // Act
+        ResponseEntity<?> response = authController.logout("Bearer jwt", null);
+        
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        verify(refreshTokenService, times(1)).revoke(2L, null);
+    }
+
+    @Test
+    @DisplayName("logout() with an invalid token should return 400 and revoke nothing")
+    public void logout_withInvalidToken_shouldReturn400() {
+        // Arrange
+        when(verifiedTokenCache.verify("jwt")).thenReturn(null);
+        
+        // Act
+        ResponseEntity<?> response = authController.logout("Bearer jwt", null);
+        
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        verifyNoInteractions(tokenRevocations);
+        verifyNoInteractions(refreshTokenService);
+    }
+
+    // ***** REFRESH *****
+    @Test
+    @DisplayName("refresh() with a valid refresh token should return 200, a new access token and the next refresh token")
+    public void refresh_withValidToken_shouldReturn200AndJwtResponse() {
+        // Arrange
+        UserDetailsImpl userDetails = UserDetailsImpl.builder()
+            .id(2L)
+            .username("hugo@studio.com")
+            .firstName("Hugo")
+            .lastName("Lebolide")
+            .admin(false)
+            .build();
+        RefreshRequest refreshRequest = new RefreshRequest();
+        refreshRequest.setRefreshToken("current");
+        
+        when(refreshTokenService.rotate("current")).thenReturn(new RefreshTokenService.Rotation(userDetails, "next"));
+        when(jwtUtils.generateJwtToken(userDetails)).thenReturn("jwt");
+        
+        // Act
+        ResponseEntity<?> response = authController.refresh(refreshRequest);
+        
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        JwtResponse jwtResponse = (JwtResponse) response.getBody();
+        assertThat(jwtResponse.getToken()).isEqualTo("jwt");
+        assertThat(jwtResponse.getRefreshToken()).isEqualTo("next");
+        assertThat(jwtResponse.getId()).isEqualTo(2L);
+        assertThat(jwtResponse.getAdmin()).isFalse();
+    }
+
+    @Test
+    @DisplayName("refresh() with an invalid refresh token should return 401 and a MessageResponse")
+    public void refresh_withInvalidToken_shouldReturn401() {
+        // Arrange
+        RefreshRequest refreshRequest = new RefreshRequest();
+        refreshRequest.setRefreshToken("reused");
+        when(refreshTokenService.rotate("reused")).thenReturn(null);
+        
+        // Act
+        ResponseEntity<?> response = authController.refresh(refreshRequest);
+        
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+        assertThat(((MessageResponse) response.getBody()).getMessage()).isEqualTo("Error: Invalid refresh token!");
+        verifyNoInteractions(jwtUtils);
+    }
+}
@@ -2,8 +2,11 @@ package com.openclassrooms.starterjwt.controllers;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.not;
 
@@ -75,6 +78,54 @@ public class SessionControllerInteTest {
             .andExpect(jsonPath("$.name").value("Yoga pour la forme"));
     }
 
+    @Test
+    @DisplayName("GET /api/session/{id} with a current ETag should return 304 until a session is written")
+    public void findById_withCurrentETag_shouldReturn304UntilWritten() throws Exception {
+        String etag = mockMvc.perform(get("/api/session/1")
+            .header("Authorization", token))
+            .andExpect(status().isOk())
+            .andExpect(header().exists("ETag"))
+            .andReturn()
+            .getResponse()
+            .getHeader("ETag");
+        
+        mockMvc.perform(get("/api/session/1")
+            .header("Authorization", token)
+            .header("If-None-Match", etag))
+            .andExpect(status().isNotModified())
+            .andExpect(content().string(""));
+        
+        // The list shares the version of the details
+        mockMvc.perform(get("/api/session")
+            .header("Authorization", token)
+            .header("If-None-Match", etag))
+            .andExpect(status().isNotModified());
+        
+        mockMvc.perform(post("/api/session/1/participate/2")
+            .header("Authorization", token))
+            .andExpect(status().isOk());
+        
+        mockMvc.perform(get("/api/session/1")
+            .header("Authorization", token)
+            .header("If-None-Match", etag))
+            .andExpect(status().isOk())
+            .andExpect(header().string("ETag", not(etag)))
+            .andExpect(jsonPath("$.users", hasItem(2)));
+    }
+
+    @Test
+    @DisplayName("GET /api/session/{id}, /api/session and /api/session/summary should let the browser keep the response and revalidate it")
+    public void sessionReads_shouldBeRevalidatedNotStored() throws Exception {
+        for (String path : new String[] { "/api/session/1", "/api/session", "/api/session/summary" }) {
+            mockMvc.perform(get(path)
+                .header("Authorization", token))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(header().string("Cache-Control", "no-cache, private"))
+                .andExpect(header().string("Cache-Control", not(containsString("no-store"))));
+        }
+    }
+
     // ***** FIND ALL *****
     // Sessions :   id 1 -> ('Yoga pour la forme', 'Yoga pour la forme', '2026-01-03 12:00:00', 1)
     //              id 2 -> ('Yoga débutant', 'Yoga pour les débutants', '2026-01-03 12:00:00', 2),
@@ -96,6 +147,155 @@ public class SessionControllerInteTest {
             .andExpect(jsonPath("$[1].teacher_id").value(2));
     }
 
+    @Test
+    @DisplayName("GET /api/session?limit=2 should return the first page and a cursor to the next one")
+    public void findAll_withLimit_shouldReturnFirstPageAndNextCursor() throws Exception {
+        String next = mockMvc.perform(get("/api/session")
+            .param("limit", "2")
+            .header("Authorization", token))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$[0].id").value(1))
+            .andExpect(jsonPath("$[1].id").value(2))
+            .andExpect(header().exists("X-Next-Cursor"))
+            .andReturn()
+            .getResponse()
+            .getHeader("X-Next-Cursor");
+        
+        // Following the cursor gives the remaining sessions, ordered by (date, id), and no further cursor
+        mockMvc.perform(get("/api/session")
+            .param("limit", "2")
+            .param("after", next)
+            .header("Authorization", token))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$[0].id").value(3))
+            .andExpect(jsonPath("$[1].id").value(4))
+            .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
+    @Test
+    @DisplayName("GET /api/session?unpaged=true should return every session")
+    public void findAll_unpaged_shouldReturnEverySession() throws Exception {
+        mockMvc.perform(get("/api/session")
+            .param("unpaged", "true")
+            .header("Authorization", token))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(4))
+            .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
+    @Test
+    @DisplayName("GET /api/session with an invalid cursor should return 400 (Bad Request)")
+    public void findAll_withInvalidCursor_shouldReturn400() throws Exception {
+        mockMvc.perform(get("/api/session")
+            .param("after", "not-a-cursor")
+            .header("Authorization", token))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("GET /api/session?limit=0 should return 400 (Bad Request)")
+    public void findAll_withZeroLimit_shouldReturn400() throws Exception {
+        mockMvc.perform(get("/api/session")
+            .param("limit", "0")
+            .header("Authorization", token))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("GET /api/session?teacherId=2 should page through the sessions of that teacher only")
+    public void findAll_withTeacherId_shouldPageThroughSessionsOfTeacher() throws Exception {
+        String next = mockMvc.perform(get("/api/session")
+            .param("teacherId", "2")
+            .param("limit", "1")
+            .header("Authorization", token))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$[0].id").value(2))
+            .andReturn()
+            .getResponse()
+            .getHeader("X-Next-Cursor");
+        
+        // The filter must be repeated with the cursor
+        mockMvc.perform(get("/api/session")
+            .param("teacherId", "2")
+            .param("limit", "1")
+            .param("after", next)
+            .header("Authorization", token))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$[0].id").value(3))
+            .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
+    @Test
+    @DisplayName("GET /api/session?from=..&to=.. should return the sessions from the first instant included to the second excluded")
+    public void findAll_withDateRange_shouldReturnSessionsInRange() throws Exception {
+        createSession("Yoga du 1er mars", "2030-03-01T10:00:00", 1);
+        createSession("Yoga du 2 mars", "2030-03-02T10:00:00", 1);
+        createSession("Yoga du 3 mars", "2030-03-03T10:00:00", 2);
+        
+        mockMvc.perform(get("/api/session")
+            .param("from", "2030-03-02T10:00:00Z")
+            .param("to", "2030-03-03T10:00:00Z")
+            .header("Authorization", token))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$[0].name").value("Yoga du 2 mars"));
+        
+        mockMvc.perform(get("/api/session/summary")
+            .param("from", "2030-01-01T00:00:00Z")
+            .param("teacherId", "1")
+            .header("Authorization", token))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$[0].name").value("Yoga du 1er mars"))
+            .andExpect(jsonPath("$[1].name").value("Yoga du 2 mars"));
+    }
+
+    @Test
+    @DisplayName("GET /api/session with a malformed date filter should return 400 (Bad Request)")
+    public void findAll_withMalformedFrom_shouldReturn400() throws Exception {
+        mockMvc.perform(get("/api/session")
+            .param("from", "yesterday")
+            .header("Authorization", token))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("GET /api/session?unpaged=true with a filter should return 400 (Bad Request)")
+    public void findAll_unpagedWithFilter_shouldReturn400() throws Exception {
+        mockMvc.perform(get("/api/session")
+            .param("unpaged", "true")
+            .param("teacherId", "1")
+            .header("Authorization", token))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("Error: Filters require paging!"));
+    }
+
+    // ***** FIND ALL SUMMARIES *****
+
+    @Test
+    @DisplayName("GET /api/session/summary should return the listing columns and the participant count only")
+    public void findAllSummaries_shouldReturnSummariesWithParticipantCount() throws Exception {
+        mockMvc.perform(post("/api/session/1/participate/2")
+            .header("Authorization", token))
+            .andExpect(status().isOk());
+        
+        mockMvc.perform(get("/api/session/summary")
+            .header("Authorization", token))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(4))
+            .andExpect(jsonPath("$[0].id").value(1))
+            .andExpect(jsonPath("$[0].name").value("Yoga pour la forme"))
+            .andExpect(jsonPath("$[0].teacher_id").value(1))
+            .andExpect(jsonPath("$[0].participantCount").value(1))
+            .andExpect(jsonPath("$[1].participantCount").value(0))
+            .andExpect(jsonPath("$[0].description").doesNotExist())
+            .andExpect(jsonPath("$[0].users").doesNotExist());
+    }
+
     // ***** CREATE *****
 
     @Test
@@ -140,6 +340,25 @@ public class SessionControllerInteTest {
             .andExpect(jsonPath("$.name").value("Yoga avancé"));
     }
 
+    @Test
+    @DisplayName("POST /api/session with unknown participant ids should return 400 (Bad Request) naming them")
+    public void create_withUnknownUserIds_shouldReturn400() throws Exception {
+        String sessionDtoString = "{"
+            + "\"name\":\"Yoga avancé\","
+            + "\"description\":\"Yoga pour les avancés\","
+            + "\"date\":\"2026-01-04T10:00:00\","
+            + "\"teacher_id\":2,"
+            + "\"users\":[2,666]"
+            + "}";
+        
+        mockMvc.perform(post("/api/session")
+            .header("Authorization", token)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(sessionDtoString))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("Error: Unknown user ids: [666]"));
+    }
+
     // ***** UPDATE *****
 
     // Updated Session : id 4 -> ('Yoga détente', 'Yoga détente', '2026-01-03 13:00:00', 1)
@@ -218,6 +437,12 @@ public class SessionControllerInteTest {
             + "\"teacher_id\":1"
             + "}";
         
+        // Puts session 4 in the cache: the update must evict it
+        mockMvc.perform(get("/api/session/4")
+            .header("Authorization", token))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.description").value("Yoga détente"));
+        
         mockMvc.perform(put("/api/session/4")
             .header("Authorization", token)
             .contentType(MediaType.APPLICATION_JSON)
@@ -315,6 +540,26 @@ public class SessionControllerInteTest {
             .andExpect(jsonPath("$.users[0]").value(2));
     }
 
+    // Participated Session : id 4 -> ('Yoga détente', 'Yoga détente', '2026-01-03 13:00:00', 1)
+    // User :                 id 2 -> ('Hugo','Lebolide', false,'hugo@studio.com')
+    @Test
+    @DisplayName("POST /api/session/{id}/participate/{id} twice should return 400 (Bad Request) and keep a single participation")
+    public void participate_twice_shouldReturn400AndKeepSingleParticipation() throws Exception {
+        mockMvc.perform(post("/api/session/4/participate/2")
+            .header("Authorization", token))
+            .andExpect(status().isOk());
+        
+        // The unique (session_id, user_id) constraint rejects the second row
+        mockMvc.perform(post("/api/session/4/participate/2")
+            .header("Authorization", token))
+            .andExpect(status().isBadRequest());
+        
+        mockMvc.perform(get("/api/session/4")
+            .header("Authorization", token))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.users.length()").value(1));
+    }
+
     // ***** NO LONGER PARTICIPATE *****
 
     @Test
@@ -362,4 +607,13 @@ public class SessionControllerInteTest {
             .andExpect(jsonPath("$.id").value(4))
             .andExpect(jsonPath("$.users", not(hasItem(2))));
     }
+
+    private void createSession(String name, String date, long teacherId) throws Exception {
+        mockMvc.perform(post("/api/session")
+            .header("Authorization", token)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"name\":\"" + name + "\",\"description\":\"" + name + "\","
+                + "\"date\":\"" + date + "\",\"teacher_id\":" + teacherId + "}"))
+            .andExpect(status().isOk());
+    }
 }
@@ -0,0 +1,209 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.openclassrooms.starterjwt.cache.SessionCache;
+import com.openclassrooms.starterjwt.utils.TestAuthUtils;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+@ActiveProfiles("test")
+@DisplayName("SessionController Statement Count Integration Test")
+public class SessionControllerStatementCountIntTest {
+    // AuthTokenFilter rebuilds the principal from the token claims, without loading the user
+    private static final long AUTHENTICATION_STATEMENTS = 0;
+
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    @Autowired
+    private EntityManager entityManager;
+    
+    @Autowired
+    private SessionCache sessionCache;
+    
+    private Statistics statistics;
+    
+    private String token;
+    
+    @BeforeEach
+    public void authenticate() throws Exception {
+        token = TestAuthUtils.authenticate(mockMvc, "hugo@studio.com", "password");
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        // The context, hence the cache, is shared with the other integration tests
+        sessionCache.clear();
+    }
+
+    /**
+     * Runs the request on an empty persistence context (the test transaction spans every
+     * request) and returns the number of JDBC statements it prepared, writes included.
+     */
+    private long statementsFor(RequestBuilder request, ResultActions[] result) throws Exception {
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+        
+        result[0] = mockMvc.perform(request);
+        // Pending writes would otherwise only reach the database when the test transaction ends
+        entityManager.flush();
+        
+        return statistics.getPrepareStatementCount();
+    }
+
+    // Sessions 1 and 2 get two participants each: the counts must not depend on them
+    private void addParticipants() throws Exception {
+        for (String path : new String[] {
+                "/api/session/1/participate/2", "/api/session/1/participate/3",
+                "/api/session/2/participate/2", "/api/session/2/participate/3" }) {
+            mockMvc.perform(post(path).header("Authorization", token)).andExpect(status().isOk());
+        }
+    }
+
+    @Test
+    @DisplayName("GET /api/session/{id} should load the session and its users in one statement")
+    public void findById_shouldUseOneStatement() throws Exception {
+        addParticipants();
+        ResultActions[] result = new ResultActions[1];
+        
+        long statements = statementsFor(get("/api/session/1").header("Authorization", token), result);
+        
+        result[0].andExpect(status().isOk())
+            .andExpect(jsonPath("$.teacher_id").value(1))
+            .andExpect(jsonPath("$.users.length()").value(2));
+        assertThat(statements).isEqualTo(AUTHENTICATION_STATEMENTS + 1);
+    }
+
+    @Test
+    @DisplayName("GET /api/session/{id} should be served from the cache until the session is written")
+    public void findById_again_shouldNotQuerySessionUntilWritten() throws Exception {
+        ResultActions[] result = new ResultActions[1];
+        mockMvc.perform(get("/api/session/1").header("Authorization", token)).andExpect(status().isOk());
+        
+        long cachedStatements = statementsFor(get("/api/session/1").header("Authorization", token), result);
+        
+        result[0].andExpect(status().isOk())
+            .andExpect(jsonPath("$.users.length()").value(0));
+        assertThat(cachedStatements).isEqualTo(AUTHENTICATION_STATEMENTS);
+        
+        mockMvc.perform(post("/api/session/1/participate/2").header("Authorization", token)).andExpect(status().isOk());
+        long reloadStatements = statementsFor(get("/api/session/1").header("Authorization", token), result);
+        
+        result[0].andExpect(status().isOk())
+            .andExpect(jsonPath("$.users.length()").value(1));
+        assertThat(reloadStatements).isEqualTo(AUTHENTICATION_STATEMENTS + 1);
+    }
+
+    @Test
+    @DisplayName("GET /api/session/{id} answered with 304 should not query the session")
+    public void findById_notModified_shouldNotQuerySession() throws Exception {
+        ResultActions[] result = new ResultActions[1];
+        String etag = mockMvc.perform(get("/api/session/1").header("Authorization", token))
+            .andReturn().getResponse().getHeader("ETag");
+        // Not cached anymore: only the ETag check can spare the session statement
+        sessionCache.clear();
+        
+        long statements = statementsFor(get("/api/session/1").header("Authorization", token).header("If-None-Match", etag), result);
+        
+        result[0].andExpect(status().isNotModified());
+        assertThat(statements).isEqualTo(AUTHENTICATION_STATEMENTS);
+    }
+
+    @Test
+    @DisplayName("GET /api/session should load a page and its users in two statements")
+    public void findAll_paged_shouldUseTwoStatements() throws Exception {
+        addParticipants();
+        ResultActions[] result = new ResultActions[1];
+        
+        long statements = statementsFor(get("/api/session").header("Authorization", token), result);
+        
+        result[0].andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(4))
+            .andExpect(jsonPath("$[0].users.length()").value(2))
+            .andExpect(jsonPath("$[1].users.length()").value(2));
+        assertThat(statements).isEqualTo(AUTHENTICATION_STATEMENTS + 2);
+    }
+
+    @Test
+    @DisplayName("GET /api/session?unpaged=true should load every session and their users in one statement")
+    public void findAll_unpaged_shouldUseOneStatement() throws Exception {
+        addParticipants();
+        ResultActions[] result = new ResultActions[1];
+        
+        long statements = statementsFor(get("/api/session").param("unpaged", "true").header("Authorization", token), result);
+        
+        result[0].andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(4));
+        assertThat(statements).isEqualTo(AUTHENTICATION_STATEMENTS + 1);
+    }
+
+    @Test
+    @DisplayName("GET /api/session/summary should use one statement")
+    public void findAllSummaries_shouldUseOneStatement() throws Exception {
+        addParticipants();
+        ResultActions[] result = new ResultActions[1];
+        
+        long statements = statementsFor(get("/api/session/summary").header("Authorization", token), result);
+        
+        result[0].andExpect(status().isOk())
+            .andExpect(jsonPath("$[0].participantCount").value(2));
+        assertThat(statements).isEqualTo(AUTHENTICATION_STATEMENTS + 1);
+    }
+
+    @Test
+    @DisplayName("POST /api/session/{id}/participate/{userId} should use the same statements whatever the number of participants")
+    public void participate_shouldNotDependOnParticipantCount() throws Exception {
+        addParticipants();
+        ResultActions[] result = new ResultActions[1];
+        
+        long crowdedSession = statementsFor(post("/api/session/1/participate/1").header("Authorization", token), result);
+        result[0].andExpect(status().isOk());
+        long emptySession = statementsFor(post("/api/session/3/participate/1").header("Authorization", token), result);
+        result[0].andExpect(status().isOk());
+        
+        // Session and user existence checks, then a single PARTICIPATE insert
+        assertThat(crowdedSession).isEqualTo(AUTHENTICATION_STATEMENTS + 3);
+        assertThat(emptySession).isEqualTo(crowdedSession);
+    }
+
+    @Test
+    @DisplayName("DELETE /api/session/{id}/participate/{userId} should use one statement whatever the number of participants")
+    public void noLongerParticipate_shouldNotDependOnParticipantCount() throws Exception {
+        addParticipants();
+        mockMvc.perform(post("/api/session/3/participate/2").header("Authorization", token))
+            .andExpect(status().isOk());
+        ResultActions[] result = new ResultActions[1];
+        
+        long crowdedSession = statementsFor(delete("/api/session/1/participate/2").header("Authorization", token), result);
+        result[0].andExpect(status().isOk());
+        long singleParticipant = statementsFor(delete("/api/session/3/participate/2").header("Authorization", token), result);
+        result[0].andExpect(status().isOk());
+        
+        // A single PARTICIPATE delete, no reload of the remaining participants
+        assertThat(crowdedSession).isEqualTo(AUTHENTICATION_STATEMENTS + 1);
+        assertThat(singleParticipant).isEqualTo(crowdedSession);
+    }
+}
@@ -19,15 +19,25 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import com.openclassrooms.starterjwt.services.SessionService;
+import com.openclassrooms.starterjwt.cache.SessionSnapshot;
 import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.dto.SessionSummaryDto;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.mapper.SessionMapper;
 import com.openclassrooms.starterjwt.models.Session;
 import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.pagination.KeysetPage;
+import com.openclassrooms.starterjwt.payload.response.MessageResponse;
+import com.openclassrooms.starterjwt.repository.SessionFilter;
 
 @ExtendWith(MockitoExtension.class)
 @DisplayName("SessionController Unit Tests")
@@ -97,49 +107,67 @@ public class SessionControllerTest {
     @DisplayName("findById() with existing id should return 200 and SessionDto")
     public void findById_withExistingId_ShouldReturn200AndSessionDto() {
         // Arrange
-        when(sessionService.getById(1L)).thenReturn(sessionWithId);
-        when(sessionMapper.toDto(sessionWithId)).thenReturn(sessionDtoWithId);
+        SessionSnapshot snapshot = SessionSnapshot.of(sessionWithId);
+        when(sessionService.getSnapshotById(1L)).thenReturn(snapshot);
+        when(sessionMapper.toDto(snapshot)).thenReturn(sessionDtoWithId);
         
         // Act
-        ResponseEntity<?> response = sessionController.findById("1");
+        ResponseEntity<?> response = sessionController.findById("1", request());
         
         // Assert
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(response.getBody()).isEqualTo(sessionDtoWithId);
-        verify(sessionService, times(1)).getById(1L);
-        verify(sessionMapper, times(1)).toDto(sessionWithId);
+        verify(sessionService, times(1)).getSnapshotById(1L);
+        verify(sessionMapper, times(1)).toDto(snapshot);
     }
     
     @Test
     @DisplayName("findById() with unknown id should return 404 (Not Found)")
     public void findById_withUnknownId_ShouldReturn404() {
         // Arrange
-        when(sessionService.getById(666L)).thenReturn(null);
+        when(sessionService.getSnapshotById(666L)).thenReturn(null);
         
         // Act
-        ResponseEntity<?> response = sessionController.findById("666");
+        ResponseEntity<?> response = sessionController.findById("666", request());
         
         // Assert
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
-        verify(sessionService, times(1)).getById(666L);
-        verify(sessionMapper, never()).toDto(any(Session.class));
+        verify(sessionService, times(1)).getSnapshotById(666L);
+        verify(sessionMapper, never()).toDto(any(SessionSnapshot.class));
     }
     
     @Test
     @DisplayName("findById() with invalid id should return 400 (Bad Request)")
     public void findById_withInvalidId_ShouldReturn400() {
         // Act
-        ResponseEntity<?> response = sessionController.findById("abc");
+        ResponseEntity<?> response = sessionController.findById("abc", request());
         
         // Assert
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
-        verify(sessionService, never()).getById(anyLong());
+        verify(sessionService, never()).getSnapshotById(anyLong());
+    }
+    
+    @Test
+    @DisplayName("findById() with a current If-None-Match should return 304 without loading the session")
+    public void findById_withCurrentETag_ShouldReturn304() {
+        // Arrange
+        when(sessionService.etag()).thenReturn("\"sessions-1\"");
+        MockHttpServletRequest servletRequest = new MockHttpServletRequest("GET", "/api/session/1");
+        servletRequest.addHeader(HttpHeaders.IF_NONE_MATCH, "\"sessions-1\"");
+        
+        // Act
+        ResponseEntity<?> response = sessionController.findById("1", new ServletWebRequest(servletRequest, new MockHttpServletResponse()));
+        
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        verify(sessionService, never()).getSnapshotById(anyLong());
+        verifyNoInteractions(sessionMapper);
     }
     
     // ***** FIND ALL *****
     @Test
-    @DisplayName("findAll() should return 200 and list of SessionDto")
-    public void findAll_ShouldReturn200AndListOfSessionDto() {
+    @DisplayName("findAll() unpaged should return 200 and list of SessionDto")
+    public void findAll_unpaged_ShouldReturn200AndListOfSessionDto() {
         // Arrange
         List<Session> sessions = new ArrayList<>(List.of(sessionWithId));
         List<SessionDto> sessionDtos = new ArrayList<>(List.of(sessionDtoWithId));
@@ -148,14 +176,96 @@ public class SessionControllerTest {
         when(sessionMapper.toDto(sessions)).thenReturn(sessionDtos);
         
         // Act
-        ResponseEntity<?> response = sessionController.findAll();
+        ResponseEntity<?> response = sessionController.findAll(new SessionFilter(), null, null, true, request());
         
         // Assert
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(response.getBody()).isEqualTo(sessionDtos);
         verify(sessionService, times(1)).findAll();
+        verify(sessionService, never()).findPage(any(), any(), any());
         verify(sessionMapper, times(1)).toDto(sessions);
     }
+
+    @Test
+    @DisplayName("findAll() paged with a next page should return 200, the page and the next cursor header")
+    public void findAll_pagedWithNextPage_ShouldReturn200AndNextCursorHeader() {
+        // Arrange
+        List<Session> sessions = new ArrayList<>(List.of(sessionWithId));
+        List<SessionDto> sessionDtos = new ArrayList<>(List.of(sessionDtoWithId));
+        
+        SessionFilter filter = new SessionFilter(null, null, 1L);
+        
+        when(sessionService.findPage(filter, "cursor", 1)).thenReturn(new KeysetPage<>(sessions, "next-cursor"));
+        when(sessionMapper.toDto(sessions)).thenReturn(sessionDtos);
+        
+        // Act
+        ResponseEntity<?> response = sessionController.findAll(filter, 1, "cursor", false, request());
+        
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(sessionDtos);
+        assertThat(response.getHeaders().getFirst("X-Next-Cursor")).isEqualTo("next-cursor");
+        verify(sessionService, never()).findAll();
+    }
+
+    @Test
+    @DisplayName("findAll() paged on the last page should return 200 without next cursor header")
+    public void findAll_pagedOnLastPage_ShouldReturn200WithoutNextCursorHeader() {
+        // Arrange
+        List<Session> sessions = new ArrayList<>(List.of(sessionWithId));
+        List<SessionDto> sessionDtos = new ArrayList<>(List.of(sessionDtoWithId));
+        
+        SessionFilter filter = new SessionFilter();
+        
+        when(sessionService.findPage(filter, null, null)).thenReturn(new KeysetPage<>(sessions, null));
+        when(sessionMapper.toDto(sessions)).thenReturn(sessionDtos);
+        
+        // Act
+        ResponseEntity<?> response = sessionController.findAll(filter, null, null, false, request());
+        
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(sessionDtos);
+        assertThat(response.getHeaders().containsKey("X-Next-Cursor")).isFalse();
+    }
+
+    @Test
+    @DisplayName("findAll() unpaged with a filter should return 400 and MessageResponse")
+    public void findAll_unpagedWithFilter_ShouldReturn400AndMessageResponse() {
+        // Arrange
+        SessionFilter filter = new SessionFilter(null, null, 1L);
+        
+        // Act
+        ResponseEntity<?> response = sessionController.findAll(filter, null, null, true, request());
+        
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(response.getBody()).isInstanceOf(MessageResponse.class);
+        verifyNoInteractions(sessionService);
+    }
+    
+    // ***** FIND ALL SUMMARIES *****
+    @Test
+    @DisplayName("findAllSummaries() should return 200, the summaries and the next cursor header")
+    public void findAllSummaries_ShouldReturn200AndSummaries() {
+        // Arrange
+        List<SessionSummaryDto> summaries = new ArrayList<>(List.of(
+            new SessionSummaryDto(1L, "Yoga", sessionWithId.getDate(), 1L, 3L)));
+        
+        SessionFilter filter = new SessionFilter();
+        
+        when(sessionService.findSummaryPage(filter, null, 1)).thenReturn(new KeysetPage<>(summaries, "next-cursor"));
+        
+        // Act
+        ResponseEntity<?> response = sessionController.findAllSummaries(filter, 1, null, request());
+        
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(summaries);
+        assertThat(response.getHeaders().getFirst("X-Next-Cursor")).isEqualTo("next-cursor");
+        // The summary view never goes through the entity mapper
+        verifyNoInteractions(sessionMapper);
+    }
     
     // ***** CREATE *****
     @Test
@@ -177,6 +287,21 @@ public class SessionControllerTest {
         verify(sessionMapper, times(1)).toDto(sessionWithId);
     }
 
+    @Test
+    @DisplayName("create() with unknown participant ids should return 400 and a MessageResponse")
+    public void create_withUnknownUserIds_ShouldReturn400AndMessageResponse() {
+        // Arrange
+        when(sessionMapper.toEntity(sessionDtoWithoutId)).thenThrow(new BadRequestException("Unknown user ids: [666]"));
+        
+        // Act
+        ResponseEntity<?> response = sessionController.create(sessionDtoWithoutId);
+        
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(((MessageResponse) response.getBody()).getMessage()).isEqualTo("Error: Unknown user ids: [666]");
+        verify(sessionService, never()).create(any(Session.class));
+    }
+
     // ***** UPDATE *****
     @Test
     @DisplayName("update() with valid id and SessionDto should return 200 and SessionDto")
@@ -327,4 +452,8 @@ public class SessionControllerTest {
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
         verify(sessionService, never()).noLongerParticipate(anyLong(), anyLong());
     }
-}
\ No newline at end of file
+
+    private ServletWebRequest request() {
+        return new ServletWebRequest(new MockHttpServletRequest("GET", "/api/session"), new MockHttpServletResponse());
+    }
+}
@@ -1,6 +1,9 @@
 package com.openclassrooms.starterjwt.controllers;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -88,4 +91,15 @@ public class TeacherControllerIntTest {
             .andExpect(jsonPath("$[1].lastName").value("THIERCELIN"));
     }
 
+    @Test
+    @DisplayName("GET /api/teacher should let the browser keep the response and revalidate it")
+    public void findAll_shouldBeRevalidatedNotStored() throws Exception {
+        mockMvc.perform(get("/api/teacher")
+            .header("Authorization", token))
+            .andExpect(status().isOk())
+            .andExpect(header().exists("ETag"))
+            .andExpect(header().string("Cache-Control", "no-cache, private"))
+            .andExpect(header().string("Cache-Control", not(containsString("no-store"))));
+    }
+
 }
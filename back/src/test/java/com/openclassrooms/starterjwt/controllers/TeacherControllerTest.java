@@ -12,8 +12,12 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import com.openclassrooms.starterjwt.dto.TeacherDto;
 import com.openclassrooms.starterjwt.mapper.TeacherMapper;
@@ -116,7 +120,7 @@ public class TeacherControllerTest {
         when(teacherMapper.toDto(teachers)).thenReturn(teacherDtos);
         
         // Act
-        ResponseEntity<?> response = teacherController.findAll();
+        ResponseEntity<?> response = teacherController.findAll(new ServletWebRequest(new MockHttpServletRequest("GET", "/api/teacher"), new MockHttpServletResponse()));
         
         // Assert
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
@@ -124,4 +128,23 @@ public class TeacherControllerTest {
         verify(teacherService, times(1)).findAll();
         verify(teacherMapper, times(1)).toDto(teachers);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("findAll() with a current If-None-Match should return 304 without reading the teachers")
+    public void findAll_withCurrentETag_ShouldReturn304() {
+        // Arrange
+        when(teacherService.etag()).thenReturn("\"teachers-1\"");
+        MockHttpServletRequest servletRequest = new MockHttpServletRequest("GET", "/api/teacher");
+        servletRequest.addHeader(HttpHeaders.IF_NONE_MATCH, "\"teachers-1\"");
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+        
+        // Act
+        ResponseEntity<?> response = teacherController.findAll(new ServletWebRequest(servletRequest, servletResponse));
+        
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(servletResponse.getHeader(HttpHeaders.ETAG)).isEqualTo("\"teachers-1\"");
+        verify(teacherService, never()).findAll();
+        verifyNoInteractions(teacherMapper);
+    }
+}
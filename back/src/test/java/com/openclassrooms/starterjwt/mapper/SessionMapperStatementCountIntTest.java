@@ -0,0 +1,143 @@
+package com.openclassrooms.starterjwt.mapper;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.services.TeacherService;
+
+@SpringBootTest
+// Same configuration as the controller integration tests: reuses their context and in-memory database
+@AutoConfigureMockMvc
+@Transactional
+@ActiveProfiles("test")
+@DisplayName("SessionMapper Statement Count Integration Test")
+public class SessionMapperStatementCountIntTest {
+    @Autowired
+    private SessionMapper sessionMapper;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private TeacherService teacherService;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    @Autowired
+    private EntityManager entityManager;
+    
+    private Statistics statistics;
+    
+    private List<Long> attendeeIds;
+    
+    @BeforeEach
+    public void prepareTestData() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        // Teachers are served from the catalog once it is loaded
+        teacherService.getCatalog();
+        
+        List<User> attendees = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            attendees.add(new User("attendee" + i + "@studio.com", "Attendee", "Number" + i, "password", false));
+        }
+        attendeeIds = userRepository.saveAll(attendees).stream().map(User::getId).collect(Collectors.toList());
+        entityManager.flush();
+    }
+
+    private SessionDto sessionDtoWith(List<Long> userIds) {
+        SessionDto sessionDto = new SessionDto();
+        sessionDto.setName("Yoga");
+        sessionDto.setDescription("Yoga pour tous");
+        sessionDto.setDate(new Date());
+        sessionDto.setTeacher_id(1L);
+        sessionDto.setUsers(userIds);
+        return sessionDto;
+    }
+
+    private long statementsToMap(SessionDto sessionDto) {
+        entityManager.clear();
+        statistics.clear();
+        
+        Session session = sessionMapper.toEntity(sessionDto);
+        
+        assertThat(session.getUsers()).hasSize(sessionDto.getUsers().size());
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    @DisplayName("toEntity() should use the same number of statements for 1, 10 and 200 attendees")
+    public void toEntity_shouldNotDependOnAttendeeCount() {
+        // Act
+        long oneAttendee = statementsToMap(sessionDtoWith(attendeeIds.subList(0, 1)));
+        long tenAttendees = statementsToMap(sessionDtoWith(attendeeIds.subList(0, 10)));
+        long twoHundredAttendees = statementsToMap(sessionDtoWith(attendeeIds));
+        
+        // Assert: the teacher comes from the catalog, every attendee from one IN query
+        assertThat(oneAttendee).isEqualTo(1);
+        assertThat(tenAttendees).isEqualTo(oneAttendee);
+        assertThat(twoHundredAttendees).isEqualTo(oneAttendee);
+    }
+
+    @Test
+    @DisplayName("toEntity() should keep the order of the ids and drop duplicates")
+    public void toEntity_shouldKeepOrderAndDropDuplicates() {
+        // Arrange
+        List<Long> userIds = List.of(attendeeIds.get(2), attendeeIds.get(0), attendeeIds.get(2));
+        
+        // Act
+        Session session = sessionMapper.toEntity(sessionDtoWith(userIds));
+        
+        // Assert
+        assertThat(session.getUsers()).extracting(User::getId)
+            .containsExactly(attendeeIds.get(2), attendeeIds.get(0));
+    }
+
+    @Test
+    @DisplayName("toEntity() with unknown user ids should throw BadRequestException naming them")
+    public void toEntity_withUnknownUserIds_shouldThrowBadRequest() {
+        // Arrange
+        List<Long> userIds = List.of(attendeeIds.get(0), -2L, -1L);
+        
+        // Act + Assert
+        assertThatThrownBy(() -> sessionMapper.toEntity(sessionDtoWith(userIds)))
+            .isInstanceOf(BadRequestException.class)
+            .hasMessage("Unknown user ids: [-2, -1]");
+    }
+
+    @Test
+    @DisplayName("toEntity() with an unknown teacher id should throw BadRequestException")
+    public void toEntity_withUnknownTeacherId_shouldThrowBadRequest() {
+        // Arrange
+        SessionDto sessionDto = sessionDtoWith(new ArrayList<>());
+        sessionDto.setTeacher_id(666L);
+        
+        // Act + Assert
+        assertThatThrownBy(() -> sessionMapper.toEntity(sessionDto))
+            .isInstanceOf(BadRequestException.class)
+            .hasMessage("Unknown teacher id: 666");
+    }
+}
@@ -0,0 +1,81 @@
+package com.openclassrooms.starterjwt.security;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.openclassrooms.starterjwt.security.jwt.JwtUtils;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import com.openclassrooms.starterjwt.utils.TestAuthUtils;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DisplayName("WebSecurityConfig Integration Test")
+public class WebSecurityConfigIntTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    private String adminToken() {
+        UserDetailsImpl admin = UserDetailsImpl.builder()
+            .id(1L).username("yoga@studio.com")
+            .firstName("Admin").lastName("Admin")
+            .admin(true)
+            .build();
+        return "Bearer " + jwtUtils.generateJwtToken(admin);
+    }
+
+    // ***** ACTUATOR *****
+
+    @Test
+    @DisplayName("GET /actuator/health without token should return 200 (OK)")
+    public void health_withoutToken_shouldReturn200() throws Exception {
+        mockMvc.perform(get("/actuator/health"))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("GET /actuator/metrics without token should return 401 (Unauthorized)")
+    public void metrics_withoutToken_shouldReturn401() throws Exception {
+        mockMvc.perform(get("/actuator/metrics"))
+            .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @DisplayName("GET /actuator/metrics as a non admin user should return 403 (Forbidden)")
+    public void metrics_asUser_shouldReturn403() throws Exception {
+        String token = TestAuthUtils.authenticate(mockMvc, "hugo@studio.com", "password");
+
+        mockMvc.perform(get("/actuator/metrics")
+            .header("Authorization", token))
+            .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @DisplayName("GET /actuator/metrics as an admin should return 200 (OK)")
+    public void metrics_asAdmin_shouldReturn200() throws Exception {
+        mockMvc.perform(get("/actuator/metrics")
+            .header("Authorization", adminToken()))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("GET /actuator/teachers as a non admin user should return 403 (Forbidden)")
+    public void teachersEndpoint_asUser_shouldReturn403() throws Exception {
+        String token = TestAuthUtils.authenticate(mockMvc, "hugo@studio.com", "password");
+
+        mockMvc.perform(get("/actuator/teachers")
+            .header("Authorization", token))
+            .andExpect(status().isForbidden());
+    }
+}
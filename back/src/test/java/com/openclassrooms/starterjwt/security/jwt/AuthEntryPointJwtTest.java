@@ -0,0 +1,56 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.InsufficientAuthenticationException;
+
+import com.jayway.jsonpath.JsonPath;
+
+@DisplayName("AuthEntryPointJwt Test")
+public class AuthEntryPointJwtTest {
+    private final AuthEntryPointJwt entryPoint = new AuthEntryPointJwt(10000);
+
+    @Test
+    @DisplayName("commence() should answer 401 with the status, error, message and path as JSON")
+    public void commence_shouldWriteJsonBody() throws Exception {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/session");
+        request.setServletPath("/api/session");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        
+        // Act
+        entryPoint.commence(request, response,
+            new InsufficientAuthenticationException("Full authentication is required to access this resource"));
+        
+        // Assert
+        String body = response.getContentAsString();
+        assertThat(response.getStatus()).isEqualTo(401);
+        assertThat(response.getContentType()).isEqualTo(MediaType.APPLICATION_JSON_VALUE);
+        assertThat((Integer) JsonPath.read(body, "$.status")).isEqualTo(401);
+        assertThat((String) JsonPath.read(body, "$.error")).isEqualTo("Unauthorized");
+        assertThat((String) JsonPath.read(body, "$.message")).isEqualTo("Full authentication is required to access this resource");
+        assertThat((String) JsonPath.read(body, "$.path")).isEqualTo("/api/session");
+    }
+
+    @Test
+    @DisplayName("commence() should escape the message and path")
+    public void commence_shouldEscapeValues() throws Exception {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/\"quoted\"");
+        request.setServletPath("/api/\"quoted\"");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        
+        // Act
+        entryPoint.commence(request, response, new InsufficientAuthenticationException("a \"b\"\n"));
+        
+        // Assert
+        String body = response.getContentAsString();
+        assertThat((String) JsonPath.read(body, "$.message")).isEqualTo("a \"b\"\n");
+        assertThat((String) JsonPath.read(body, "$.path")).isEqualTo("/api/\"quoted\"");
+    }
+}
@@ -0,0 +1,32 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.starterjwt.security.jwt.JwtFailures.Reason;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("JwtFailures Test")
+public class JwtFailuresTest {
+    @Test
+    @DisplayName("record() should count every failure by reason, including the ones whose log is suppressed")
+    public void record_shouldCountEveryFailureByReason() {
+        // Arrange
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        JwtFailures jwtFailures = new JwtFailures(meterRegistry, 60000);
+        
+        // Act
+        for (int i = 0; i < 1000; i++) {
+            jwtFailures.record(Reason.EXPIRED, "JWT expired at 2024-01-01T00:00:00Z");
+        }
+        jwtFailures.record(Reason.SIGNATURE, "JWT signature does not match");
+        
+        // Assert
+        assertThat(meterRegistry.get("auth.jwt.failures").tag("reason", "expired").counter().count()).isEqualTo(1000);
+        assertThat(meterRegistry.get("auth.jwt.failures").tag("reason", "signature").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("auth.jwt.failures").tag("reason", "malformed").counter().count()).isZero();
+    }
+}
@@ -0,0 +1,134 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("JwtKeyRingLoader Test")
+public class JwtKeyRingLoaderTest {
+    private static final String SECRET_KEY = "testSecretKey123456789";
+    
+    @TempDir
+    Path tempDir;
+    
+    private JwtUtils jwtUtils;
+    private VerifiedTokenCache verifiedTokenCache;
+    private Path keyFile;
+    private JwtKeyRingLoader loader;
+    
+    @BeforeEach
+    public void setUp() {
+        jwtUtils = new JwtUtils(new JwtFailures(new SimpleMeterRegistry(), 10000));
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", SECRET_KEY);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 3600000);
+        verifiedTokenCache = mock(VerifiedTokenCache.class);
+        keyFile = tempDir.resolve("jwt-keys.properties");
+        loader = new JwtKeyRingLoader(jwtUtils, verifiedTokenCache, SECRET_KEY, keyFile.toString(), true);
+    }
+
+    private void writeKeyFile(String content) throws Exception {
+        Files.write(keyFile, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("reload() should install the key ring of the file and clear verified tokens, once per content")
+    public void reload_withNewContent_shouldInstallKeyRing() throws Exception {
+        // Arrange
+        writeKeyFile("active=k1\nkey.k1=firstKey12345678\n");
+        
+        // Act
+        loader.reload();
+        loader.reload();
+        
+        // Assert
+        assertThat(jwtUtils.getKeyRing().getActiveKid()).isEqualTo("k1");
+        verify(verifiedTokenCache, times(1)).clear();
+        
+        // Act: rotation
+        writeKeyFile("active=k2\nkey.k1=firstKey12345678\nkey.k2=secondKey1234567\n");
+        loader.reload();
+        
+        // Assert
+        assertThat(jwtUtils.getKeyRing().getActiveKid()).isEqualTo("k2");
+        assertThat(jwtUtils.getKeyRing().getVerificationKey("k1")).isNotNull();
+        verify(verifiedTokenCache, times(2)).clear();
+    }
+
+    @Test
+    @DisplayName("reload() with the legacy switch off should stop verifying kid-less tokens")
+    public void reload_withLegacyOff_shouldRetireLegacyKey() throws Exception {
+        // Arrange
+        writeKeyFile("active=k1\nkey.k1=firstKey12345678\n");
+        loader = new JwtKeyRingLoader(jwtUtils, verifiedTokenCache, SECRET_KEY, keyFile.toString(), false);
+        
+        // Act
+        loader.reload();
+        
+        // Assert
+        assertThat(jwtUtils.getKeyRing().getVerificationKey(null)).isNull();
+        assertThat(jwtUtils.getKeyRing().getVerificationKey("k1")).isNotNull();
+    }
+
+    @Test
+    @DisplayName("reload() should retire the legacy key once the file turns acceptLegacy off, without a restart")
+    public void reload_withAcceptLegacyOffInFile_shouldRetireLegacyKey() throws Exception {
+        // Arrange: the property still accepts legacy tokens
+        writeKeyFile("active=k1\nkey.k1=firstKey12345678\n");
+        loader.reload();
+        assertThat(jwtUtils.getKeyRing().getVerificationKey(null)).isNotNull();
+        
+        // Act
+        writeKeyFile("active=k1\nkey.k1=firstKey12345678\nacceptLegacy=false\n");
+        loader.reload();
+        
+        // Assert
+        assertThat(jwtUtils.getKeyRing().getVerificationKey(null)).isNull();
+        assertThat(jwtUtils.getKeyRing().getVerificationKey("k1")).isNotNull();
+        verify(verifiedTokenCache, times(2)).clear();
+    }
+
+    @Test
+    @DisplayName("reload() with an invalid file should keep the current key ring")
+    public void reload_withInvalidFile_shouldKeepKeyRing() throws Exception {
+        // Arrange
+        writeKeyFile("active=k1\nkey.k1=firstKey12345678\n");
+        loader.reload();
+        JwtKeyRing loaded = jwtUtils.getKeyRing();
+        
+        // Act
+        writeKeyFile("active=k9\nkey.k1=firstKey12345678\n");
+        loader.reload();
+        writeKeyFile("active=k1\nkey.k1=firstKey12345678\nacceptLegacy=no\n");
+        loader.reload();
+        Files.delete(keyFile);
+        loader.reload();
+        
+        // Assert
+        assertThat(jwtUtils.getKeyRing()).isSameAs(loaded);
+    }
+
+    @Test
+    @DisplayName("reload() without key file should keep signing with the legacy secret")
+    public void reload_withoutKeyFile_shouldDoNothing() {
+        // Arrange
+        loader = new JwtKeyRingLoader(jwtUtils, verifiedTokenCache, SECRET_KEY, "", true);
+        
+        // Act
+        loader.reload();
+        
+        // Assert
+        assertThat(jwtUtils.getKeyRing().getActiveKid()).isNull();
+        verifyNoInteractions(verifiedTokenCache);
+    }
+}
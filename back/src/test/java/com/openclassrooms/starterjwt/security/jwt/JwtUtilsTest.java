@@ -3,6 +3,7 @@ package com.openclassrooms.starterjwt.security.jwt;
 import static org.assertj.core.api.Assertions.*;
 
 import java.util.Date;
+import java.util.Properties;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -16,17 +17,19 @@ import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 @DisplayName("JwtUtils Test")
 public class JwtUtilsTest {
     private static final String SECRET_KEY = "testSecretKey123456789";
     private static final int EXPIRATION_MS = 3600000;
     
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
     private JwtUtils jwtUtils;
     
     @BeforeEach
     public void setUp() {
-        jwtUtils = new JwtUtils();
+        jwtUtils = new JwtUtils(new JwtFailures(meterRegistry, 10000));
         
         // Inject secret and expiration since JwtUtils normally reads them from application properties
         ReflectionTestUtils.setField(jwtUtils, "jwtSecret", SECRET_KEY);
@@ -60,6 +63,43 @@ public class JwtUtilsTest {
         assertThat(claims.getSubject()).isEqualTo(username);
     }
 
+    @Test
+    @DisplayName("generateJwtToken() should embed the principal so that it can be rebuilt from the claims")
+    public void generateJwtToken_shouldEmbedPrincipalClaims() {
+        // Arrange
+        UserDetailsImpl userDetails = UserDetailsImpl.builder()
+            .id(2L)
+            .username("test@test.com")
+            .firstName("Hugo")
+            .lastName("Lebolide")
+            .admin(true)
+            .password("password")
+            .build();
+        String token = jwtUtils.generateJwtToken(new UsernamePasswordAuthenticationToken(userDetails, null));
+        
+        // Act
+        UserDetailsImpl rebuilt = jwtUtils.getUserDetailsFromClaims(jwtUtils.getVerifiedClaims(token));
+        
+        // Assert
+        assertThat(rebuilt.getId()).isEqualTo(2L);
+        assertThat(rebuilt.getUsername()).isEqualTo("test@test.com");
+        assertThat(rebuilt.getFirstName()).isEqualTo("Hugo");
+        assertThat(rebuilt.getLastName()).isEqualTo("Lebolide");
+        assertThat(rebuilt.getAdmin()).isTrue();
+        // Never part of the token
+        assertThat(rebuilt.getPassword()).isNull();
+    }
+
+    @Test
+    @DisplayName("getUserDetailsFromClaims() with a token without id claim should return null")
+    public void getUserDetailsFromClaims_withoutIdClaim_shouldReturnNull() {
+        // Arrange
+        Claims claims = Jwts.claims().setSubject("test@test.com");
+        
+        // Act + Assert
+        assertThat(jwtUtils.getUserDetailsFromClaims(claims)).isNull();
+    }
+
     // ***** GET USERNAME FROM JWT TOKEN *****
 
     @Test
@@ -112,6 +152,7 @@ public class JwtUtilsTest {
         
         // Assert
         assertThat(isValid).isFalse();
+        assertThat(meterRegistry.get("auth.jwt.failures").tag("reason", "expired").counter().count()).isEqualTo(1);
     }
 
     @Test
@@ -164,4 +205,134 @@ public class JwtUtilsTest {
         // Assert
         assertThat(isValid).isFalse();
     }
-}
\ No newline at end of file
+
+    // ***** GET VERIFIED CLAIMS *****
+    @Test
+    @DisplayName("getVerifiedClaims() with valid token should return its claims")
+    public void getVerifiedClaims_withValidToken_shouldReturnClaims() {
+        // Arrange
+        String token = Jwts.builder()
+            .setSubject("test@test.com")
+            .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_MS))
+            .signWith(SignatureAlgorithm.HS512, SECRET_KEY)
+            .compact();
+        
+        // Act
+        Claims claims = jwtUtils.getVerifiedClaims(token);
+        
+        // Assert
+        assertThat(claims.getSubject()).isEqualTo("test@test.com");
+        assertThat(claims.getExpiration()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("getVerifiedClaims() with invalid signature should return null")
+    public void getVerifiedClaims_withInvalidSignature_shouldReturnNull() {
+        // Arrange
+        String token = Jwts.builder()
+            .setSubject("test@test.com")
+            .signWith(SignatureAlgorithm.HS512, "wrongSecretKey")
+            .compact();
+        
+        // Act + Assert
+        assertThat(jwtUtils.getVerifiedClaims(token)).isNull();
+    }
+
+    // ***** KEY RING *****
+    private String tokenFor(String username) {
+        UserDetailsImpl userDetails = UserDetailsImpl.builder()
+            .id(2L)
+            .username(username)
+            .password("password")
+            .build();
+        return jwtUtils.generateJwtToken(new UsernamePasswordAuthenticationToken(userDetails, null));
+    }
+
+    private JwtKeyRing keyRing(String activeKid, String... kidAndSecrets) {
+        return keyRing(true, activeKid, kidAndSecrets);
+    }
+
+    private JwtKeyRing keyRing(boolean acceptLegacy, String activeKid, String... kidAndSecrets) {
+        Properties keyFile = new Properties();
+        keyFile.setProperty("active", activeKid);
+        for (int i = 0; i < kidAndSecrets.length; i += 2) {
+            keyFile.setProperty("key." + kidAndSecrets[i], kidAndSecrets[i + 1]);
+        }
+        return JwtKeyRing.of(SECRET_KEY, keyFile, acceptLegacy);
+    }
+
+    @Test
+    @DisplayName("generateJwtToken() with a key ring should sign with the active key and set its kid")
+    public void generateJwtToken_withKeyRing_shouldSignWithActiveKid() {
+        // Arrange
+        jwtUtils.setKeyRing(keyRing("k2", "k1", "firstKey12345678", "k2", "secondKey1234567"));
+        
+        // Act
+        String token = tokenFor("test@test.com");
+        
+        // Assert
+        assertThat(Jwts.parser().setSigningKey("secondKey1234567").parseClaimsJws(token).getHeader().getKeyId())
+            .isEqualTo("k2");
+        assertThat(jwtUtils.getUserNameFromJwtToken(token)).isEqualTo("test@test.com");
+    }
+
+    @Test
+    @DisplayName("getVerifiedClaims() during a rotation should verify tokens of the previous key and legacy tokens")
+    public void getVerifiedClaims_duringRotation_shouldVerifyOldTokens() {
+        // Arrange
+        String legacyToken = tokenFor("legacy@test.com");
+        jwtUtils.setKeyRing(keyRing("k1", "k1", "firstKey12345678"));
+        String k1Token = tokenFor("k1@test.com");
+        
+        // Act
+        jwtUtils.setKeyRing(keyRing("k2", "k1", "firstKey12345678", "k2", "secondKey1234567"));
+        
+        // Assert
+        assertThat(jwtUtils.getVerifiedClaims(legacyToken).getSubject()).isEqualTo("legacy@test.com");
+        assertThat(jwtUtils.getVerifiedClaims(k1Token).getSubject()).isEqualTo("k1@test.com");
+    }
+
+    @Test
+    @DisplayName("getVerifiedClaims() with a kid-less legacy token once the legacy key is retired should return null")
+    public void getVerifiedClaims_withLegacyTokenAfterRetirement_shouldReturnNull() {
+        // Arrange: a forged admin token, signed with the committed legacy secret and no kid
+        String forgedToken = Jwts.builder()
+            .setSubject("attacker@test.com")
+            .claim("id", 1L)
+            .claim("admin", true)
+            .setIssuedAt(new Date())
+            .setExpiration(new Date(System.currentTimeMillis() + 60000))
+            .signWith(SignatureAlgorithm.HS512, SECRET_KEY)
+            .compact();
+        
+        // Act
+        jwtUtils.setKeyRing(keyRing(false, "k1", "k1", "firstKey12345678"));
+        
+        // Assert
+        assertThat(jwtUtils.getVerifiedClaims(forgedToken)).isNull();
+        assertThat(meterRegistry.get("auth.jwt.failures").tag("reason", "signature").counter().count()).isEqualTo(1);
+        assertThat(jwtUtils.getVerifiedClaims(tokenFor("k1@test.com")).getSubject()).isEqualTo("k1@test.com");
+    }
+
+    @Test
+    @DisplayName("getVerifiedClaims() with the kid of a retired key should return null")
+    public void getVerifiedClaims_withRetiredKid_shouldReturnNull() {
+        // Arrange
+        jwtUtils.setKeyRing(keyRing("k1", "k1", "firstKey12345678"));
+        String k1Token = tokenFor("k1@test.com");
+        
+        // Act
+        jwtUtils.setKeyRing(keyRing("k2", "k2", "secondKey1234567"));
+        
+        // Assert
+        assertThat(jwtUtils.getVerifiedClaims(k1Token)).isNull();
+    }
+
+    @Test
+    @DisplayName("JwtKeyRing.of() with an active kid missing from the keys should throw IllegalArgumentException")
+    public void keyRing_withUnknownActiveKid_shouldThrow() {
+        // Act + Assert
+        assertThatThrownBy(() -> keyRing("k3", "k1", "firstKey12345678"))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,32 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("LogSampler Test")
+public class LogSamplerTest {
+    @Test
+    @DisplayName("sample() should let one event through per interval and count the suppressed ones")
+    public void sample_shouldLetOneEventThroughPerInterval() {
+        // Arrange
+        AtomicLong clock = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+        LogSampler sampler = new LogSampler(1000, clock::get);
+        
+        // Act + Assert
+        assertThat(sampler.sample()).isZero();
+        assertThat(sampler.sample()).isEqualTo(-1);
+        assertThat(sampler.sample()).isEqualTo(-1);
+        
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+        assertThat(sampler.sample()).isEqualTo(-1);
+        
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        assertThat(sampler.sample()).isEqualTo(3);
+        assertThat(sampler.sample()).isEqualTo(-1);
+    }
+}
@@ -0,0 +1,117 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("VerifiedTokenCache Test")
+public class VerifiedTokenCacheTest {
+    private static final String SECRET_KEY = "testSecretKey123456789";
+    private static final int EXPIRATION_MS = 3600000;
+    
+    private JwtUtils jwtUtils;
+    private VerifiedTokenCache verifiedTokenCache;
+    
+    @BeforeEach
+    public void setUp() {
+        jwtUtils = spy(new JwtUtils(new JwtFailures(new SimpleMeterRegistry(), 10000)));
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", SECRET_KEY);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", EXPIRATION_MS);
+        
+        verifiedTokenCache = new VerifiedTokenCache(jwtUtils, 100, EXPIRATION_MS, new SimpleMeterRegistry());
+    }
+
+    private String token(String secret) {
+        return Jwts.builder()
+            .setSubject("test@test.com")
+            .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_MS))
+            .signWith(SignatureAlgorithm.HS512, secret)
+            .compact();
+    }
+
+    // ***** VERIFY *****
+    @Test
+    @DisplayName("verify() called twice with the same token should check the signature once")
+    public void verify_twice_shouldParseOnce() {
+        // Arrange
+        String token = token(SECRET_KEY);
+        
+        // Act
+        Claims first = verifiedTokenCache.verify(token);
+        Claims second = verifiedTokenCache.verify(token);
+        
+        // Assert
+        assertThat(first.getSubject()).isEqualTo("test@test.com");
+        assertThat(second).isSameAs(first);
+        verify(jwtUtils, times(1)).getVerifiedClaims(token);
+    }
+
+    @Test
+    @DisplayName("verify() should not remember invalid tokens")
+    public void verify_withInvalidToken_shouldReturnNullAndNotCache() {
+        // Arrange
+        String token = token("wrongSecretKey");
+        
+        // Act
+        assertThat(verifiedTokenCache.verify(token)).isNull();
+        assertThat(verifiedTokenCache.verify(token)).isNull();
+        
+        // Assert
+        verify(jwtUtils, times(2)).getVerifiedClaims(token);
+    }
+
+    @Test
+    @DisplayName("clear() should make the next verify() check the signature again")
+    public void clear_shouldVerifyAgain() {
+        // Arrange
+        String token = token(SECRET_KEY);
+        verifiedTokenCache.verify(token);
+        
+        // Act
+        verifiedTokenCache.clear();
+        verifiedTokenCache.verify(token);
+        
+        // Assert
+        verify(jwtUtils, times(2)).getVerifiedClaims(token);
+    }
+
+    // ***** EXPIRATION *****
+    @Test
+    @DisplayName("nanosUntilExpiration() should keep an entry until the exp claim")
+    public void nanosUntilExpiration_shouldEndAtExp() {
+        // Arrange
+        Claims claims = Jwts.claims().setExpiration(new Date(11000L));
+        
+        // Act + Assert
+        assertThat(VerifiedTokenCache.nanosUntilExpiration(claims, 1000L, EXPIRATION_MS))
+            .isEqualTo(TimeUnit.SECONDS.toNanos(10));
+        // Already expired
+        assertThat(VerifiedTokenCache.nanosUntilExpiration(claims, 12000L, EXPIRATION_MS)).isZero();
+    }
+
+    @Test
+    @DisplayName("nanosUntilExpiration() should cap tokens without or with a far exp to the issued lifetime")
+    public void nanosUntilExpiration_withoutOrFarExp_shouldCapToMaxTtl() {
+        // Arrange
+        Claims withoutExp = Jwts.claims();
+        Claims farExp = Jwts.claims().setExpiration(new Date(Long.MAX_VALUE / 2));
+        
+        // Act + Assert
+        assertThat(VerifiedTokenCache.nanosUntilExpiration(withoutExp, 0L, EXPIRATION_MS))
+            .isEqualTo(TimeUnit.MILLISECONDS.toNanos(EXPIRATION_MS));
+        assertThat(VerifiedTokenCache.nanosUntilExpiration(farExp, 0L, EXPIRATION_MS))
+            .isEqualTo(TimeUnit.MILLISECONDS.toNanos(EXPIRATION_MS));
+    }
+}
@@ -0,0 +1,87 @@
+package com.openclassrooms.starterjwt.security.ratelimit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import javax.servlet.FilterChain;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.openclassrooms.starterjwt.exception.TooManyRequestsException;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("AuthRateLimitFilter Test")
+public class AuthRateLimitFilterTest {
+    @Mock
+    private AuthRateLimits authRateLimits;
+    
+    @Mock
+    private FilterChain filterChain;
+    
+    @InjectMocks
+    private AuthRateLimitFilter authRateLimitFilter;
+
+    private MockHttpServletRequest request(String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.setServletPath(path);
+        request.setRemoteAddr("1.2.3.4");
+        return request;
+    }
+
+    @Test
+    @DisplayName("doFilter() on /api/auth within the limit should continue the chain")
+    public void doFilter_withinLimit_shouldContinue() throws Exception {
+        // Arrange
+        MockHttpServletRequest request = request("/api/auth/login");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        when(authRateLimits.tryAcquireForIp("1.2.3.4")).thenReturn(0L);
+        
+        // Act
+        authRateLimitFilter.doFilter(request, response, filterChain);
+        
+        // Assert
+        verify(filterChain, times(1)).doFilter(request, response);
+        assertThat(response.getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    @DisplayName("doFilter() on /api/auth over the limit should answer 429 with Retry-After")
+    public void doFilter_overLimit_shouldReturn429() throws Exception {
+        // Arrange
+        MockHttpServletRequest request = request("/api/auth/login");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        when(authRateLimits.tryAcquireForIp("1.2.3.4")).thenReturn(7L);
+        
+        // Act
+        authRateLimitFilter.doFilter(request, response, filterChain);
+        
+        // Assert
+        assertThat(response.getStatus()).isEqualTo(429);
+        assertThat(response.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("7");
+        assertThat(response.getContentAsString()).isEqualTo("{\"message\":\"" + TooManyRequestsException.MESSAGE + "\"}");
+        verifyNoInteractions(filterChain);
+    }
+
+    @Test
+    @DisplayName("doFilter() outside /api/auth should not be limited")
+    public void doFilter_outsideAuth_shouldNotBeLimited() throws Exception {
+        // Arrange
+        MockHttpServletRequest request = request("/api/session");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        
+        // Act
+        authRateLimitFilter.doFilter(request, response, filterChain);
+        
+        // Assert
+        verify(filterChain, times(1)).doFilter(request, response);
+        verifyNoInteractions(authRateLimits);
+    }
+}
@@ -0,0 +1,65 @@
+package com.openclassrooms.starterjwt.security.ratelimit;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("RateLimiter Test")
+public class RateLimiterTest {
+    private AtomicLong clock;
+    private RateLimiter rateLimiter;
+
+    @BeforeEach
+    public void setUp() {
+        // 6 permits per minute: one token every 10 seconds, bursts of 3
+        clock = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+        rateLimiter = new RateLimiter(6, 3, 100, clock::get);
+    }
+
+    @Test
+    @DisplayName("tryAcquire() should allow a full burst, then reject with the time until the next token")
+    public void tryAcquire_afterBurst_shouldReturnRetryAfter() {
+        // Act + Assert
+        assertThat(rateLimiter.tryAcquire("1.2.3.4")).isZero();
+        assertThat(rateLimiter.tryAcquire("1.2.3.4")).isZero();
+        assertThat(rateLimiter.tryAcquire("1.2.3.4")).isZero();
+        assertThat(rateLimiter.tryAcquire("1.2.3.4")).isEqualTo(10);
+        
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(4));
+        assertThat(rateLimiter.tryAcquire("1.2.3.4")).isEqualTo(6);
+    }
+
+    @Test
+    @DisplayName("tryAcquire() should give a token back every interval")
+    public void tryAcquire_afterInterval_shouldAllowAgain() {
+        // Arrange
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.tryAcquire("1.2.3.4");
+        }
+        
+        // Act
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        
+        // Assert
+        assertThat(rateLimiter.tryAcquire("1.2.3.4")).isZero();
+        assertThat(rateLimiter.tryAcquire("1.2.3.4")).isPositive();
+    }
+
+    @Test
+    @DisplayName("tryAcquire() should keep one bucket per key")
+    public void tryAcquire_withOtherKey_shouldNotBeLimited() {
+        // Arrange
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.tryAcquire("1.2.3.4");
+        }
+        
+        // Act + Assert
+        assertThat(rateLimiter.tryAcquire("1.2.3.4")).isPositive();
+        assertThat(rateLimiter.tryAcquire("5.6.7.8")).isZero();
+    }
+}
@@ -0,0 +1,56 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("BCryptCalibration Test")
+public class BCryptCalibrationTest {
+    @Test
+    @DisplayName("calibrate() with a zero target should keep the minimum cost")
+    public void calibrate_withZeroTarget_shouldKeepMinCost() {
+        // Act
+        BCryptCalibration calibration = BCryptCalibration.calibrate(0, 4, 6);
+        
+        // Assert
+        assertThat(calibration.getCost()).isEqualTo(4);
+        assertThat(calibration.getHashMillis()).isGreaterThanOrEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("calibrate() with a generous target should stop at the maximum cost")
+    public void calibrate_withGenerousTarget_shouldStopAtMaxCost() {
+        // Act
+        BCryptCalibration calibration = BCryptCalibration.calibrate(60_000, 4, 6);
+        
+        // Assert
+        assertThat(calibration.getCost()).isEqualTo(6);
+    }
+
+    @Test
+    @DisplayName("calibrate() with an inverted range should throw IllegalArgumentException")
+    public void calibrate_withInvertedRange_shouldThrow() {
+        // Act + Assert
+        assertThatThrownBy(() -> BCryptCalibration.calibrate(250, 12, 10))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("median() should ignore a single outlier sample")
+    public void median_shouldIgnoreOutlier() {
+        // Act + Assert
+        assertThat(BCryptCalibration.median(new long[] { 60, 61, 900, 59, 62 })).isEqualTo(61);
+        assertThat(BCryptCalibration.median(new long[] { 40, 900, 60, 50 })).isEqualTo(55);
+    }
+
+    @Test
+    @DisplayName("costOf() should read the cost of BCrypt hashes and return -1 otherwise")
+    public void costOf_shouldReadBCryptCost() {
+        // Act + Assert
+        assertThat(BCryptCalibration.costOf("$2a$10$Un2hnRoAkhu9YVDzFgWeI.zPv1K/DsrfWLitTJ.2gIYxWVaUOniIG")).isEqualTo(10);
+        assertThat(BCryptCalibration.costOf("$2y$12$abc")).isEqualTo(12);
+        assertThat(BCryptCalibration.costOf("password")).isEqualTo(-1);
+        assertThat(BCryptCalibration.costOf(null)).isEqualTo(-1);
+    }
+}
@@ -0,0 +1,33 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+@DisplayName("BloomFilter Test")
+public class BloomFilterTest {
+    @Test
+    @DisplayName("mightContain() should never miss an added value and rarely match others")
+    public void mightContain_shouldHaveNoFalseNegativesAndFewFalsePositives() {
+        // Arrange
+        BloomFilter filter = new BloomFilter(1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            filter.put("t:" + i);
+        }
+        
+        // Act
+        int falsePositives = 0;
+        for (int i = 1000; i < 11000; i++) {
+            if (filter.mightContain("t:" + i)) {
+                falsePositives++;
+            }
+        }
+        
+        // Assert
+        for (int i = 0; i < 1000; i++) {
+            assertThat(filter.mightContain("t:" + i)).isTrue();
+        }
+        assertThat(falsePositives).isLessThan(300);
+    }
+}
@@ -0,0 +1,175 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.openclassrooms.starterjwt.exception.ServiceUnavailableException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("BoundedPasswordEncoder Test")
+public class BoundedPasswordEncoderTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private BoundedPasswordEncoder passwordEncoder;
+
+    @AfterEach
+    public void shutdown() {
+        passwordEncoder.destroy();
+    }
+
+    @Test
+    @DisplayName("encode() and matches() should delegate to BCrypt on the pool and record their latency")
+    public void encodeAndMatches_shouldDelegateAndRecordLatency() {
+        // Arrange
+        passwordEncoder = new BoundedPasswordEncoder(1, 1, 1, 0, 4, 4, false, meterRegistry);
+        
+        // Act
+        String hash = passwordEncoder.encode("password");
+        
+        // Assert
+        assertThat(hash).startsWith("$2a$04$");
+        assertThat(passwordEncoder.matches("password", hash)).isTrue();
+        assertThat(passwordEncoder.matches("wrong", hash)).isFalse();
+        assertThat(meterRegistry.get("auth.password.hashing").tag("operation", "encode").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("auth.password.hashing").tag("operation", "matches").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("encode() when the pool and its queue are full should fail fast with ServiceUnavailableException")
+    public void encode_whenSaturated_shouldThrowServiceUnavailable() throws Exception {
+        // Arrange: one worker blocked, one queued task
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder blocking = new BlockingPasswordEncoder(started, release);
+        passwordEncoder = new BoundedPasswordEncoder(blocking, new BCryptCalibration(10, 0), false, 1, 1, 1, meterRegistry);
+        
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> passwordEncoder.encode("first"));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> passwordEncoder.encode("second"));
+        while (meterRegistry.get("executor.queued").tag("name", "passwordHashing").gauge().value() < 1) {
+            Thread.sleep(5);
+        }
+        
+        // Act + Assert
+        assertThatThrownBy(() -> passwordEncoder.encode("third"))
+            .isInstanceOf(ServiceUnavailableException.class);
+        assertThat(meterRegistry.get("auth.password.hashing.rejected").counter().count()).isEqualTo(1);
+        
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("first");
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("second");
+    }
+
+    @Test
+    @DisplayName("upgradeEncoding() should only flag BCrypt hashes below the calibrated cost")
+    public void upgradeEncoding_shouldFlagLowerCostsOnly() {
+        // Arrange
+        passwordEncoder = new BoundedPasswordEncoder(new PlainPasswordEncoder(), new BCryptCalibration(10, 0), false, 1, 1, 1, meterRegistry);
+        
+        // Act + Assert
+        assertThat(passwordEncoder.upgradeEncoding("$2a$10$Un2hnRoAkhu9YVDzFgWeI.zPv1K/DsrfWLitTJ.2gIYxWVaUOniIG")).isFalse();
+        assertThat(passwordEncoder.upgradeEncoding("$2a$08$Un2hnRoAkhu9YVDzFgWeI.zPv1K/DsrfWLitTJ.2gIYxWVaUOniIG")).isTrue();
+        assertThat(passwordEncoder.upgradeEncoding("$2a$12$Un2hnRoAkhu9YVDzFgWeI.zPv1K/DsrfWLitTJ.2gIYxWVaUOniIG")).isFalse();
+        assertThat(passwordEncoder.upgradeEncoding("plain")).isFalse();
+        assertThat(meterRegistry.get("auth.password.bcrypt.cost").gauge().value()).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("upgradeEncoding() with downgrades allowed should also flag BCrypt hashes above the calibrated cost")
+    public void upgradeEncoding_withDowngradeAllowed_shouldFlagHigherCosts() {
+        // Arrange
+        passwordEncoder = new BoundedPasswordEncoder(new PlainPasswordEncoder(), new BCryptCalibration(10, 0), true, 1, 1, 1, meterRegistry);
+        
+        // Act + Assert
+        assertThat(passwordEncoder.upgradeEncoding("$2a$10$Un2hnRoAkhu9YVDzFgWeI.zPv1K/DsrfWLitTJ.2gIYxWVaUOniIG")).isFalse();
+        assertThat(passwordEncoder.upgradeEncoding("$2a$08$Un2hnRoAkhu9YVDzFgWeI.zPv1K/DsrfWLitTJ.2gIYxWVaUOniIG")).isTrue();
+        assertThat(passwordEncoder.upgradeEncoding("$2a$12$Un2hnRoAkhu9YVDzFgWeI.zPv1K/DsrfWLitTJ.2gIYxWVaUOniIG")).isTrue();
+    }
+
+    @Test
+    @DisplayName("encodeInBackground() should hash on its own thread, and drop the work when its queue is full")
+    public void encodeInBackground_shouldHashOrDropWhenSaturated() throws Exception {
+        // Arrange: the rehash thread blocked, one queued rehash
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        passwordEncoder = new BoundedPasswordEncoder(new BlockingPasswordEncoder(started, release), new BCryptCalibration(10, 0), false, 1, 1, 1, meterRegistry);
+        
+        // Act
+        CompletableFuture<String> first = passwordEncoder.encodeInBackground("first");
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> second = passwordEncoder.encodeInBackground("second");
+        CompletableFuture<String> third = passwordEncoder.encodeInBackground("third");
+        release.countDown();
+        
+        // Assert
+        assertThat(third).isNull();
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("first");
+        assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("second");
+        assertThat(meterRegistry.get("auth.password.hashing").tag("operation", "rehash").timer().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("auth.password.hashing.rejected").counter().count()).isZero();
+    }
+
+    @Test
+    @DisplayName("encodeInBackground() with a full rehash queue should leave the login pool free")
+    public void encodeInBackground_whenSaturated_shouldNotTakeLoginPool() throws Exception {
+        // Arrange: the rehash thread blocked and its queue full
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        passwordEncoder = new BoundedPasswordEncoder(new BlockingPasswordEncoder(started, release), new BCryptCalibration(10, 0), false, 1, 1, 1, meterRegistry);
+        passwordEncoder.encodeInBackground("first");
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        passwordEncoder.encodeInBackground("second");
+        
+        // Act + Assert: logins still hash on their own pool
+        assertThat(meterRegistry.get("executor.queued").tag("name", "passwordHashing").gauge().value()).isZero();
+        assertThat(passwordEncoder.matches("password", "password")).isTrue();
+        release.countDown();
+    }
+
+    private static class PlainPasswordEncoder implements PasswordEncoder {
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return rawPassword.toString();
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return rawPassword.toString().equals(encodedPassword);
+        }
+    }
+
+    private static class BlockingPasswordEncoder implements PasswordEncoder {
+        private final PasswordEncoder delegate = new PlainPasswordEncoder();
+        private final CountDownLatch started;
+        private final CountDownLatch release;
+
+        BlockingPasswordEncoder(CountDownLatch started, CountDownLatch release) {
+            this.started = started;
+            this.release = release;
+        }
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return delegate.encode(rawPassword);
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return delegate.matches(rawPassword, encodedPassword);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import com.openclassrooms.starterjwt.repository.UserRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PasswordRehasher Test")
+public class PasswordRehasherTest {
+    private static final String OLD_HASH = "$2a$10$Un2hnRoAkhu9YVDzFgWeI.zPv1K/DsrfWLitTJ.2gIYxWVaUOniIG";
+
+    @Mock
+    private BoundedPasswordEncoder passwordEncoder;
+
+    @Mock
+    private UserRepository userRepository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    // Database writes are queued here and run by the test, as the update thread would
+    private final List<Runnable> updates = new ArrayList<>();
+    private PasswordRehasher passwordRehasher;
+    private UserDetailsImpl user;
+
+    @BeforeEach
+    public void setUp() {
+        passwordRehasher = new PasswordRehasher(passwordEncoder, userRepository, updates::add, meterRegistry);
+        user = UserDetailsImpl.builder().id(2L).username("hugo@studio.com").password(OLD_HASH).build();
+    }
+
+    @Test
+    @DisplayName("rehashIfNeeded() with a hash of the calibrated cost should do nothing")
+    public void rehashIfNeeded_withCalibratedCost_shouldDoNothing() {
+        // Arrange
+        when(passwordEncoder.upgradeEncoding(OLD_HASH)).thenReturn(false);
+        
+        // Act
+        passwordRehasher.rehashIfNeeded(user, "password");
+        
+        // Assert
+        verify(passwordEncoder, never()).encodeInBackground(any());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    @DisplayName("rehashIfNeeded() with a lower cost should replace the hash it was derived from")
+    public void rehashIfNeeded_withOtherCost_shouldUpdatePassword() {
+        // Arrange
+        when(passwordEncoder.upgradeEncoding(OLD_HASH)).thenReturn(true);
+        when(passwordEncoder.encodeInBackground("password")).thenReturn(CompletableFuture.completedFuture("new-hash"));
+        when(userRepository.updatePassword(2L, OLD_HASH, "new-hash")).thenReturn(1);
+        
+        // Act
+        passwordRehasher.rehashIfNeeded(user, "password");
+        runUpdates();
+        
+        // Assert
+        verify(userRepository, times(1)).updatePassword(2L, OLD_HASH, "new-hash");
+        assertThat(meterRegistry.get("auth.password.rehash").tag("result", "updated").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("rehashIfNeeded() racing a password change should leave the new password alone")
+    public void rehashIfNeeded_withChangedPassword_shouldCountStale() {
+        // Arrange
+        when(passwordEncoder.upgradeEncoding(OLD_HASH)).thenReturn(true);
+        when(passwordEncoder.encodeInBackground("password")).thenReturn(CompletableFuture.completedFuture("new-hash"));
+        when(userRepository.updatePassword(2L, OLD_HASH, "new-hash")).thenReturn(0);
+        
+        // Act
+        passwordRehasher.rehashIfNeeded(user, "password");
+        runUpdates();
+        
+        // Assert
+        assertThat(meterRegistry.get("auth.password.rehash").tag("result", "stale").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("rehashIfNeeded() with a database error should count it without throwing")
+    public void rehashIfNeeded_withDatabaseError_shouldCountFailure() {
+        // Arrange
+        when(passwordEncoder.upgradeEncoding(OLD_HASH)).thenReturn(true);
+        when(passwordEncoder.encodeInBackground("password")).thenReturn(CompletableFuture.completedFuture("new-hash"));
+        when(userRepository.updatePassword(2L, OLD_HASH, "new-hash")).thenThrow(new DataAccessResourceFailureException("down"));
+        
+        // Act
+        passwordRehasher.rehashIfNeeded(user, "password");
+        runUpdates();
+        
+        // Assert
+        assertThat(meterRegistry.get("auth.password.rehash").tag("result", "failed").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("rehashIfNeeded() with a full rehash queue should skip the rehash")
+    public void rehashIfNeeded_withFullPool_shouldCountSkipped() {
+        // Arrange
+        when(passwordEncoder.upgradeEncoding(OLD_HASH)).thenReturn(true);
+        when(passwordEncoder.encodeInBackground("password")).thenReturn(null);
+        
+        // Act
+        passwordRehasher.rehashIfNeeded(user, "password");
+        
+        // Assert
+        verifyNoInteractions(userRepository);
+        assertThat(meterRegistry.get("auth.password.rehash").tag("result", "skipped").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("rehashIfNeeded() should leave the database write to the update executor, not the hashing thread")
+    public void rehashIfNeeded_shouldWriteOnUpdateExecutor() {
+        // Arrange
+        when(passwordEncoder.upgradeEncoding(OLD_HASH)).thenReturn(true);
+        CompletableFuture<String> newPassword = new CompletableFuture<>();
+        when(passwordEncoder.encodeInBackground("password")).thenReturn(newPassword);
+        
+        // Act: the hash completes, as it would on the rehash thread
+        passwordRehasher.rehashIfNeeded(user, "password");
+        newPassword.complete("new-hash");
+        
+        // Assert
+        verifyNoInteractions(userRepository);
+        assertThat(updates).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("rehashIfNeeded() with a failed hash should count it without writing")
+    public void rehashIfNeeded_withFailedHash_shouldCountFailure() {
+        // Arrange
+        when(passwordEncoder.upgradeEncoding(OLD_HASH)).thenReturn(true);
+        CompletableFuture<String> newPassword = new CompletableFuture<>();
+        newPassword.completeExceptionally(new IllegalStateException("boom"));
+        when(passwordEncoder.encodeInBackground("password")).thenReturn(newPassword);
+        
+        // Act
+        passwordRehasher.rehashIfNeeded(user, "password");
+        
+        // Assert
+        assertThat(updates).isEmpty();
+        assertThat(meterRegistry.get("auth.password.rehash").tag("result", "failed").counter().count()).isEqualTo(1);
+    }
+
+    private void runUpdates() {
+        updates.forEach(Runnable::run);
+    }
+}
@@ -0,0 +1,77 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import com.openclassrooms.starterjwt.repository.UserRepository;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("RegisteredEmails Test")
+public class RegisteredEmailsTest {
+    @Mock
+    private UserRepository userRepository;
+
+    @Test
+    @DisplayName("mightBeRegistered() before seeding should report every email")
+    public void mightBeRegistered_beforeSeed_shouldReturnTrue() {
+        // Arrange
+        RegisteredEmails registeredEmails = new RegisteredEmails(userRepository, 1000, 0.01);
+        
+        // Act + Assert
+        assertThat(registeredEmails.mightBeRegistered("fresh@test.com")).isTrue();
+    }
+
+    @Test
+    @DisplayName("seed() should load the emails, ignoring case, and rule out fresh ones")
+    public void seed_shouldLoadEmails() {
+        // Arrange
+        when(userRepository.findAllEmails()).thenReturn(Arrays.asList("yoga@studio.com", "Hugo@Studio.com"));
+        RegisteredEmails registeredEmails = new RegisteredEmails(userRepository, 1000, 0.01);
+        
+        // Act
+        registeredEmails.seed();
+        
+        // Assert
+        assertThat(registeredEmails.mightBeRegistered("yoga@studio.com")).isTrue();
+        assertThat(registeredEmails.mightBeRegistered("hugo@studio.com")).isTrue();
+        assertThat(registeredEmails.mightBeRegistered("fresh@test.com")).isFalse();
+    }
+
+    @Test
+    @DisplayName("add() should make a new email reported as registered")
+    public void add_shouldReportEmail() {
+        // Arrange
+        when(userRepository.findAllEmails()).thenReturn(Arrays.asList());
+        RegisteredEmails registeredEmails = new RegisteredEmails(userRepository, 1000, 0.01);
+        registeredEmails.seed();
+        
+        // Act
+        registeredEmails.add("fresh@test.com");
+        
+        // Assert
+        assertThat(registeredEmails.mightBeRegistered("fresh@test.com")).isTrue();
+    }
+
+    @Test
+    @DisplayName("seed() failing should keep reporting every email")
+    public void seed_withDatabaseDown_shouldKeepReportingEveryEmail() {
+        // Arrange
+        when(userRepository.findAllEmails()).thenThrow(new DataAccessResourceFailureException("down"));
+        RegisteredEmails registeredEmails = new RegisteredEmails(userRepository, 1000, 0.01);
+        
+        // Act
+        registeredEmails.seed();
+        
+        // Assert
+        assertThat(registeredEmails.mightBeRegistered("fresh@test.com")).isTrue();
+    }
+}
@@ -0,0 +1,129 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Date;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.openclassrooms.starterjwt.models.RevokedToken;
+import com.openclassrooms.starterjwt.repository.RevokedTokenRepository;
+
+@DisplayName("TokenRevocations Test")
+public class TokenRevocationsTest {
+    private RevokedTokenRepository revokedTokenRepository;
+    private TokenRevocations tokenRevocations;
+
+    @BeforeEach
+    public void setUp() {
+        revokedTokenRepository = mock(RevokedTokenRepository.class);
+        tokenRevocations = new TokenRevocations(revokedTokenRepository, 3600000, 100, 0.01);
+    }
+
+    @AfterEach
+    public void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private Date inOneHour() {
+        return new Date(System.currentTimeMillis() + 3600000);
+    }
+
+    // ***** REVOKE USER *****
+    @Test
+    @DisplayName("revokeUser() should persist the revocation and reject the tokens issued before it only")
+    public void revokeUser_shouldRejectTokensIssuedBeforeRevocation() {
+        // Arrange
+        Date before = new Date(System.currentTimeMillis() - 60000);
+        
+        // Act
+        tokenRevocations.revokeUser(1L);
+        
+        // Assert
+        assertThat(tokenRevocations.isRevoked("jti", 1L, before)).isTrue();
+        assertThat(tokenRevocations.isRevoked("jti", 1L, null)).isTrue();
+        assertThat(tokenRevocations.isRevoked("jti", 1L, new Date(System.currentTimeMillis() + 60000))).isFalse();
+        assertThat(tokenRevocations.isRevoked("jti", 2L, before)).isFalse();
+        verify(revokedTokenRepository, times(1)).save(argThat(revoked -> revoked.getUserId() == 1L && revoked.getTokenId() == null));
+    }
+
+    @Test
+    @DisplayName("revokeUser() inside a transaction should only apply once it commits")
+    public void revokeUser_insideTransaction_shouldApplyAfterCommit() {
+        // Arrange
+        Date issuedAt = new Date(System.currentTimeMillis() - 60000);
+        TransactionSynchronizationManager.initSynchronization();
+        
+        // Act
+        tokenRevocations.revokeUser(1L);
+        boolean revokedBeforeCommit = tokenRevocations.isRevoked(null, 1L, issuedAt);
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+        
+        // Assert
+        assertThat(revokedBeforeCommit).isFalse();
+        assertThat(tokenRevocations.isRevoked(null, 1L, issuedAt)).isTrue();
+    }
+
+    // ***** REVOKE TOKEN *****
+    @Test
+    @DisplayName("revokeToken() should reject that token only")
+    public void revokeToken_shouldRejectThatTokenOnly() {
+        // Arrange
+        Date issuedAt = new Date();
+        
+        // Act
+        tokenRevocations.revokeToken("revoked", inOneHour());
+        
+        // Assert
+        assertThat(tokenRevocations.isRevoked("revoked", 1L, issuedAt)).isTrue();
+        assertThat(tokenRevocations.isRevoked("other", 1L, issuedAt)).isFalse();
+    }
+
+    // ***** LOAD & PRUNE *****
+    @Test
+    @DisplayName("load() should restore the persisted revocations")
+    public void load_shouldRestorePersistedRevocations() {
+        // Arrange
+        RevokedToken persisted = RevokedToken.builder()
+            .tokenId("persisted")
+            .revokedAt(Instant.now())
+            .expiresAt(Instant.now().plusSeconds(3600))
+            .build();
+        when(revokedTokenRepository.findByExpiresAtAfter(any(Instant.class))).thenReturn(Collections.singletonList(persisted));
+        
+        // Act
+        tokenRevocations.load();
+        
+        // Assert
+        assertThat(tokenRevocations.isRevoked("persisted", null, new Date())).isTrue();
+    }
+
+    @Test
+    @DisplayName("prune() should delete the expired revocations and keep the others")
+    public void prune_shouldForgetExpiredRevocations() {
+        // Arrange
+        tokenRevocations.revokeToken("expired", new Date(System.currentTimeMillis() - 1000));
+        tokenRevocations.revokeToken("active", inOneHour());
+        
+        // Act
+        tokenRevocations.prune();
+        
+        // Assert
+        verify(revokedTokenRepository, times(1)).deleteExpired(any(Instant.class));
+        assertThat(tokenRevocations.isRevoked("expired", null, new Date())).isFalse();
+        assertThat(tokenRevocations.isRevoked("active", null, new Date())).isTrue();
+    }
+}
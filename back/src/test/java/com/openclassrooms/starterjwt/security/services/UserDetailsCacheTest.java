@@ -0,0 +1,83 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@DisplayName("UserDetailsCache Test")
+public class UserDetailsCacheTest {
+    private SimpleMeterRegistry meterRegistry;
+    private UserDetailsCache userDetailsCache;
+    private AtomicInteger loads;
+    private Function<String, UserDetailsImpl> loader;
+
+    @BeforeEach
+    public void prepareTestData() {
+        meterRegistry = new SimpleMeterRegistry();
+        userDetailsCache = new UserDetailsCache(10, 60000, meterRegistry);
+        loads = new AtomicInteger();
+        loader = email -> {
+            loads.incrementAndGet();
+            if (!email.endsWith("@studio.com")) {
+                throw new UsernameNotFoundException("User Not Found with email: " + email);
+            }
+            return UserDetailsImpl.builder()
+                .id(2L)
+                .username(email)
+                .firstName("Hugo")
+                .lastName("Lebolide")
+                .admin(false)
+                .password("$2a$10$hash")
+                .build();
+        };
+    }
+
+    @Test
+    @DisplayName("get() should load a user once, without keeping the password, and count hits")
+    public void get_twice_shouldLoadOnceWithoutPassword() {
+        // Act
+        UserDetailsImpl first = userDetailsCache.get("hugo@studio.com", loader);
+        UserDetailsImpl second = userDetailsCache.get("hugo@studio.com", loader);
+        
+        // Assert
+        assertThat(second).isSameAs(first);
+        assertThat(first.getId()).isEqualTo(2L);
+        assertThat(first.getAdmin()).isFalse();
+        assertThat(first.getPassword()).isNull();
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "userDetails").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("get() with unknown user should rethrow and not cache anything")
+    public void get_withUnknownUser_shouldThrowAndNotCache() {
+        // Act + Assert
+        assertThatThrownBy(() -> userDetailsCache.get("pouet@test.com", loader))
+            .isInstanceOf(UsernameNotFoundException.class);
+        assertThatThrownBy(() -> userDetailsCache.get("pouet@test.com", loader))
+            .isInstanceOf(UsernameNotFoundException.class);
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("evictUser() should drop the entries of that user id")
+    public void evictUser_shouldReloadOnNextGet() {
+        // Arrange
+        userDetailsCache.get("hugo@studio.com", loader);
+        
+        // Act
+        userDetailsCache.evictUser(2L);
+        userDetailsCache.get("hugo@studio.com", loader);
+        
+        // Assert
+        assertThat(loads.get()).isEqualTo(2);
+    }
+}
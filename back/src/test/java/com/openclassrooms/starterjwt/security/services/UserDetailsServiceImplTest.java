@@ -57,8 +57,8 @@ public class UserDetailsServiceImplTest {
         assertThat(userDetailsImpl.getId()).isEqualTo(1L);
         assertThat(userDetailsImpl.getFirstName()).isEqualTo("Hugo");
         assertThat(userDetailsImpl.getLastName()).isEqualTo("Lebolide");
-        // Important: UserDetailsImpl does NOT expose the admin flag → always null
-        assertThat(userDetailsImpl.getAdmin()).isNull();
+        // The admin flag travels in the token claims
+        assertThat(userDetailsImpl.getAdmin()).isFalse();
         
         verify(userRepository, times(1)).findByEmail("test@test.com");
     }
@@ -0,0 +1,181 @@
+package com.openclassrooms.starterjwt.services;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.openclassrooms.starterjwt.models.RefreshToken;
+import com.openclassrooms.starterjwt.repository.RefreshTokenRepository;
+import com.openclassrooms.starterjwt.security.TokenHashes;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("RefreshTokenService Unit Tests")
+public class RefreshTokenServiceTest {
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+    @Mock
+    private UserDetailsServiceImpl userDetailsService;
+    
+    @InjectMocks
+    private RefreshTokenService refreshTokenService;
+    
+    private RefreshToken stored;
+    
+    @BeforeEach
+    public void prepareTestData() {
+        ReflectionTestUtils.setField(refreshTokenService, "refreshTokenExpirationMs", 3600000L);
+        
+        stored = RefreshToken.builder()
+            .id(10L)
+            .tokenHash(TokenHashes.sha256("current"))
+            .familyId("family")
+            .userId(2L)
+            .createdAt(Instant.now())
+            .expiresAt(Instant.now().plusSeconds(3600))
+            .build();
+    }
+
+    // ***** ISSUE *****
+    @Test
+    @DisplayName("issue() should store the hash of a new random token, never the token itself")
+    public void issue_shouldStoreHashOnly() {
+        // Act
+        String token = refreshTokenService.issue(2L);
+        
+        // Assert
+        ArgumentCaptor<RefreshToken> saved = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepository, times(1)).save(saved.capture());
+        assertThat(token).isNotBlank();
+        assertThat(saved.getValue().getTokenHash()).isEqualTo(TokenHashes.sha256(token)).isNotEqualTo(token);
+        assertThat(saved.getValue().getUserId()).isEqualTo(2L);
+        assertThat(saved.getValue().getFamilyId()).isNotBlank();
+        assertThat(refreshTokenService.issue(2L)).isNotEqualTo(token);
+    }
+
+    // ***** REVOKE *****
+    @Test
+    @DisplayName("revoke() with a refresh token of the user should revoke its family only")
+    public void revoke_withOwnToken_shouldRevokeFamily() {
+        // Arrange
+        when(refreshTokenRepository.findByTokenHash(TokenHashes.sha256("current"))).thenReturn(Optional.of(stored));
+        
+        // Act
+        refreshTokenService.revoke(2L, "current");
+        
+        // Assert
+        verify(refreshTokenRepository, times(1)).revokeFamily("family");
+        verify(refreshTokenRepository, never()).revokeUser(any());
+    }
+
+    @Test
+    @DisplayName("revoke() without refresh token, or with one of another user, should revoke every refresh token of the user")
+    public void revoke_withoutOwnToken_shouldRevokeUser() {
+        // Arrange
+        when(refreshTokenRepository.findByTokenHash(TokenHashes.sha256("current"))).thenReturn(Optional.of(stored));
+        
+        // Act
+        refreshTokenService.revoke(3L, "current");
+        refreshTokenService.revoke(3L, null);
+        
+        // Assert
+        verify(refreshTokenRepository, times(2)).revokeUser(3L);
+        verify(refreshTokenRepository, never()).revokeFamily(any());
+    }
+
+    // ***** ROTATE *****
+    @Test
+    @DisplayName("rotate() with a valid token should use it up and return the next token of the family")
+    public void rotate_withValidToken_shouldReturnNextToken() {
+        // Arrange
+        UserDetailsImpl userDetails = UserDetailsImpl.builder().id(2L).username("hugo@studio.com").build();
+        when(refreshTokenRepository.findByTokenHash(TokenHashes.sha256("current"))).thenReturn(Optional.of(stored));
+        when(refreshTokenRepository.markUsed(eq(10L), any(Instant.class))).thenReturn(1);
+        when(userDetailsService.loadUserById(2L)).thenReturn(userDetails);
+        
+        // Act
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate("current");
+        
+        // Assert
+        ArgumentCaptor<RefreshToken> saved = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepository, times(1)).save(saved.capture());
+        assertThat(rotation.getUserDetails()).isSameAs(userDetails);
+        assertThat(rotation.getRefreshToken()).isNotEqualTo("current");
+        assertThat(saved.getValue().getFamilyId()).isEqualTo("family");
+        verify(refreshTokenRepository, never()).revokeFamily(any());
+    }
+
+    @Test
+    @DisplayName("rotate() with an already used token should revoke the whole family and return null")
+    public void rotate_withUsedToken_shouldRevokeFamily() {
+        // Arrange
+        when(refreshTokenRepository.findByTokenHash(TokenHashes.sha256("current"))).thenReturn(Optional.of(stored));
+        when(refreshTokenRepository.markUsed(eq(10L), any(Instant.class))).thenReturn(0);
+        
+        // Act
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate("current");
+        
+        // Assert
+        assertThat(rotation).isNull();
+        verify(refreshTokenRepository, times(1)).revokeFamily("family");
+        verify(refreshTokenRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("rotate() with an unknown, expired or revoked token should return null")
+    public void rotate_withInvalidToken_shouldReturnNull() {
+        // Arrange
+        when(refreshTokenRepository.findByTokenHash(anyString())).thenReturn(Optional.empty());
+        
+        // Act + Assert
+        assertThat(refreshTokenService.rotate("unknown")).isNull();
+        
+        stored.setExpiresAt(Instant.now().minusSeconds(1));
+        when(refreshTokenRepository.findByTokenHash(TokenHashes.sha256("current"))).thenReturn(Optional.of(stored));
+        assertThat(refreshTokenService.rotate("current")).isNull();
+        
+        stored.setExpiresAt(Instant.now().plusSeconds(3600)).setRevoked(true);
+        assertThat(refreshTokenService.rotate("current")).isNull();
+        
+        verify(refreshTokenRepository, never()).markUsed(any(), any());
+    }
+
+    @Test
+    @DisplayName("rotate() for a deleted user should return null")
+    public void rotate_withDeletedUser_shouldReturnNull() {
+        // Arrange
+        when(refreshTokenRepository.findByTokenHash(TokenHashes.sha256("current"))).thenReturn(Optional.of(stored));
+        when(refreshTokenRepository.markUsed(eq(10L), any(Instant.class))).thenReturn(1);
+        when(userDetailsService.loadUserById(2L)).thenThrow(new UsernameNotFoundException("User Not Found with id: 2"));
+        
+        // Act + Assert
+        assertThat(refreshTokenService.rotate("current")).isNull();
+        verify(refreshTokenRepository, never()).save(any());
+    }
+
+    // ***** PRUNE *****
+    @Test
+    @DisplayName("prune() should delete the expired tokens in bulk")
+    public void prune_shouldDeleteExpired() {
+        // Act
+        refreshTokenService.prune();
+        
+        // Assert
+        verify(refreshTokenRepository, times(1)).deleteExpired(any(Instant.class));
+    }
+}
@@ -1,10 +1,16 @@
 package com.openclassrooms.starterjwt.services;
 
+import com.openclassrooms.starterjwt.cache.SessionCache;
+import com.openclassrooms.starterjwt.cache.SessionSnapshot;
+import com.openclassrooms.starterjwt.dto.SessionSummaryDto;
 import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.exception.NotFoundException;
 import com.openclassrooms.starterjwt.models.Session;
 import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.pagination.KeysetCursor;
+import com.openclassrooms.starterjwt.pagination.KeysetPage;
+import com.openclassrooms.starterjwt.repository.SessionFilter;
 import com.openclassrooms.starterjwt.repository.SessionRepository;
 import com.openclassrooms.starterjwt.repository.UserRepository;
 
@@ -17,15 +23,19 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.assertj.core.api.Assertions.*;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
 
 @ExtendWith(MockitoExtension.class)
 @DisplayName("SessionService Test")
@@ -34,6 +44,8 @@ public class SessionServiceTest {
     private SessionRepository sessionRepository;
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private SessionCache sessionCache;
     
     @InjectMocks
     private SessionService sessionService;
@@ -44,6 +56,10 @@ public class SessionServiceTest {
     
     @BeforeEach
     public void prepareTestData() {
+        // Page sizes normally come from application properties
+        ReflectionTestUtils.setField(sessionService, "defaultPageSize", 2);
+        ReflectionTestUtils.setField(sessionService, "maxPageSize", 3);
+
         Date date = new Date();
         List<User> users = new ArrayList<>();
         
@@ -83,6 +99,7 @@ public class SessionServiceTest {
         // Assert
         assertThat(createdSession).isEqualTo(sessionWithId);
         verify(sessionRepository, times(1)).save(sessionWithoutId);
+        verify(sessionCache, times(1)).evict(1L);
     }
 
     // ***** DELETE *****
@@ -95,6 +112,7 @@ public class SessionServiceTest {
         
         // Assert
         verify(sessionRepository, times(1)).deleteById(1L);
+        verify(sessionCache, times(1)).evict(1L);
     }
 
     // ***** FIND ALL *****
@@ -111,14 +129,121 @@ public class SessionServiceTest {
                 .setDate(new Date())
                 .setUsers(new ArrayList<>());
         List<Session> sessionList = List.of(sessionWithId, session2);
-        when(sessionRepository.findAll()).thenReturn(sessionList);
+        when(sessionRepository.findAllWithUsers()).thenReturn(sessionList);
         
         // Act
         List<Session> foundAllSessions = sessionService.findAll();
 
         // Assert
         assertThat(foundAllSessions).isEqualTo(sessionList);
-        verify(sessionRepository, times(1)).findAll();
+        verify(sessionRepository, times(1)).findAllWithUsers();
+    }
+
+    // ***** FIND PAGE *****
+
+    @Test
+    @DisplayName("findPage() without cursor should fetch the first page with one extra row and return the next cursor")
+    public void findPage_withoutCursor_shouldReturnFirstPageAndNextCursor() {
+        // Arrange
+        SessionFilter filter = new SessionFilter();
+        Session session2 = new Session().setId(2L).setDate(new Date(2000L));
+        Session session3 = new Session().setId(3L).setDate(new Date(3000L));
+        sessionWithId.setDate(new Date(1000L));
+        when(sessionRepository.findPage(filter, null, 3))
+                .thenReturn(List.of(sessionWithId, session2, session3));
+        
+        // Act
+        KeysetPage<Session> page = sessionService.findPage(filter, null, null);
+        
+        // Assert
+        assertThat(page.getItems()).containsExactly(sessionWithId, session2);
+        // Users of the returned sessions only are loaded, in one extra query
+        verify(sessionRepository, times(1)).findWithUsersByIdIn(List.of(1L, 2L));
+        KeysetCursor next = KeysetCursor.decode(page.getNext());
+        assertThat(next.getId()).isEqualTo(2L);
+        assertThat(next.getDate()).isEqualTo(new Date(2000L));
+    }
+
+    @Test
+    @DisplayName("findPage() with cursor and filter should fetch the matching rows after it and return no next cursor on the last page")
+    public void findPage_withCursorAndFilterOnLastPage_shouldReturnRowsAfterCursorWithoutNext() {
+        // Arrange
+        Date date = new Date(2000L);
+        String after = new KeysetCursor(date, 2L).encode();
+        SessionFilter filter = new SessionFilter(Instant.ofEpochMilli(0L), Instant.ofEpochMilli(5000L), 1L);
+        when(sessionRepository.findPage(eq(filter), any(KeysetCursor.class), eq(3)))
+                .thenReturn(List.of(sessionWithId));
+        
+        // Act
+        KeysetPage<Session> page = sessionService.findPage(filter, after, 2);
+        
+        // Assert
+        assertThat(page.getItems()).containsExactly(sessionWithId);
+        assertThat(page.getNext()).isNull();
+        ArgumentCaptor<KeysetCursor> cursorCaptor = ArgumentCaptor.forClass(KeysetCursor.class);
+        verify(sessionRepository, times(1)).findPage(eq(filter), cursorCaptor.capture(), eq(3));
+        assertThat(cursorCaptor.getValue().getDate()).isEqualTo(date);
+        assertThat(cursorCaptor.getValue().getId()).isEqualTo(2L);
+    }
+
+    @Test
+    @DisplayName("findPage() with a limit above the maximum should cap the page size")
+    public void findPage_withTooLargeLimit_shouldCapPageSize() {
+        // Arrange
+        SessionFilter filter = new SessionFilter();
+        when(sessionRepository.findPage(filter, null, 4)).thenReturn(new ArrayList<>());
+        
+        // Act
+        sessionService.findPage(filter, null, 1000);
+        
+        // Assert
+        verify(sessionRepository, times(1)).findPage(filter, null, 4);
+        // Nothing to load when the page is empty
+        verify(sessionRepository, never()).findWithUsersByIdIn(any());
+    }
+
+    @Test
+    @DisplayName("findPage() with a non positive limit should throw BadRequestException")
+    public void findPage_withNonPositiveLimit_shouldThrowBadRequest() {
+        // Act + Assert
+        assertThatThrownBy(() -> sessionService.findPage(new SessionFilter(), null, 0))
+                .isInstanceOf(BadRequestException.class);
+        
+        verifyNoInteractions(sessionRepository);
+    }
+
+    @Test
+    @DisplayName("findPage() with a malformed cursor should throw BadRequestException")
+    public void findPage_withMalformedCursor_shouldThrowBadRequest() {
+        // Act + Assert
+        assertThatThrownBy(() -> sessionService.findPage(new SessionFilter(), "not-a-cursor", null))
+                .isInstanceOf(BadRequestException.class);
+        
+        verifyNoInteractions(sessionRepository);
+    }
+
+    // ***** FIND SUMMARY PAGE *****
+
+    @Test
+    @DisplayName("findSummaryPage() with cursor should return the projected rows after it")
+    public void findSummaryPage_withCursor_shouldReturnSummariesAfterCursor() {
+        // Arrange
+        Date date = new Date(1000L);
+        String after = new KeysetCursor(date, 1L).encode();
+        SessionFilter filter = new SessionFilter(null, null, 1L);
+        SessionSummaryDto summary2 = new SessionSummaryDto(2L, "Yoga", new Date(2000L), 1L, 0L);
+        SessionSummaryDto summary3 = new SessionSummaryDto(3L, "Pilates", new Date(3000L), 1L, 5L);
+        SessionSummaryDto summary4 = new SessionSummaryDto(4L, "Stretching", new Date(4000L), 1L, 1L);
+        when(sessionRepository.findSummaryPage(eq(filter), any(KeysetCursor.class), eq(3)))
+                .thenReturn(List.of(summary2, summary3, summary4));
+        
+        // Act
+        KeysetPage<SessionSummaryDto> page = sessionService.findSummaryPage(filter, after, null);
+        
+        // Assert
+        assertThat(page.getItems()).containsExactly(summary2, summary3);
+        assertThat(KeysetCursor.decode(page.getNext()).getId()).isEqualTo(3L);
+        verify(sessionRepository, never()).findAll();
     }
 
     // ***** GET BY ID *****
@@ -127,28 +252,74 @@ public class SessionServiceTest {
     @DisplayName("getById() with existing id should return session")
     public void getById_withExistingId_shouldReturnSession() {
         // Arrange
-        when(sessionRepository.findById(1L)).thenReturn(Optional.of(sessionWithId));
+        when(sessionRepository.findWithUsersById(1L)).thenReturn(Optional.of(sessionWithId));
         
         // Act
         Session foundSession = sessionService.getById(1L);
         
         // Assert
         assertThat(foundSession).isEqualTo(sessionWithId);
-        verify(sessionRepository, times(1)).findById(1L);
+        verify(sessionRepository, times(1)).findWithUsersById(1L);
     }
 
     @Test
     @DisplayName("getById() with unknown id should return null")
     public void getById_withUnknownId_shouldReturnNull() {
         // Arrange
-        when(sessionRepository.findById(99L)).thenReturn(Optional.empty());
+        when(sessionRepository.findWithUsersById(99L)).thenReturn(Optional.empty());
         
         // Act
         Session foundSession = sessionService.getById(99L);
         
         // Assert
         assertThat(foundSession).isNull();
-        verify(sessionRepository, times(1)).findById(99L);
+        verify(sessionRepository, times(1)).findWithUsersById(99L);
+    }
+
+    // ***** GET SNAPSHOT BY ID *****
+
+    @Test
+    @DisplayName("getSnapshotById() should read through the cache with a snapshot of the loaded session")
+    public void getSnapshotById_withExistingId_shouldLoadSnapshotThroughCache() {
+        // Arrange
+        when(sessionCache.get(eq(1L), any())).thenAnswer(invocation ->
+                invocation.<Function<Long, SessionSnapshot>>getArgument(1).apply(1L));
+        when(sessionRepository.findWithUsersById(1L)).thenReturn(Optional.of(sessionWithId));
+        
+        // Act
+        SessionSnapshot snapshot = sessionService.getSnapshotById(1L);
+        
+        // Assert
+        assertThat(snapshot.getId()).isEqualTo(1L);
+        assertThat(snapshot.getTeacherId()).isEqualTo(1L);
+        assertThat(snapshot.getName()).isEqualTo("Yoga");
+    }
+
+    @Test
+    @DisplayName("getSnapshotById() with unknown id should return null")
+    public void getSnapshotById_withUnknownId_shouldReturnNull() {
+        // Arrange
+        when(sessionCache.get(eq(99L), any())).thenAnswer(invocation ->
+                invocation.<Function<Long, SessionSnapshot>>getArgument(1).apply(99L));
+        when(sessionRepository.findWithUsersById(99L)).thenReturn(Optional.empty());
+        
+        // Act + Assert
+        assertThat(sessionService.getSnapshotById(99L)).isNull();
+    }
+
+    @Test
+    @DisplayName("getSnapshotById() on a cache hit should not query the repository")
+    public void getSnapshotById_onCacheHit_shouldNotQueryRepository() {
+        // Arrange
+        SessionSnapshot cached = SessionSnapshot.of(sessionWithId);
+        when(sessionCache.get(eq(1L), any())).thenReturn(cached);
+        
+        // Act
+        SessionSnapshot snapshot = sessionService.getSnapshotById(1L);
+        
+        // Assert
+        assertThat(snapshot).isSameAs(cached);
+        verifyNoInteractions(sessionRepository);
     }
 
     // ***** UPDATE *****
@@ -174,6 +345,7 @@ public class SessionServiceTest {
         
         assertThat(savedSession.getId()).isEqualTo(1L);
         assertThat(result).isEqualTo(updatedSession);
+        verify(sessionCache, times(1)).evict(1L);
     }
 
     // ****** PARTICIPATE ******
@@ -182,85 +354,68 @@ public class SessionServiceTest {
     @DisplayName("participate() with missing session should throw NotFoundException")
     public void participate_withMissingSession_shouldThrowNotFound() {
         // Arrange
-        when(sessionRepository.findById(1L)).thenReturn(Optional.empty());
-        when(userRepository.findById(1L)).thenReturn(Optional.of(new User()));
+        when(sessionRepository.existsById(1L)).thenReturn(false);
         
         // Act + Assert
         assertThatThrownBy(() -> sessionService.participate(1L, 1L))
                 .isInstanceOf(NotFoundException.class);
         
-        verify(sessionRepository, times(1)).findById(1L);
-        verify(userRepository, times(1)).findById(1L);
-        verify(sessionRepository, never()).save(any(Session.class));
+        verify(sessionRepository, times(1)).existsById(1L);
+        verify(sessionRepository, never()).addParticipant(anyLong(), anyLong());
     }
 
     @Test
     @DisplayName("participate() with missing user should throw NotFoundException")
     public void participate_withMissingUser_shouldThrowNotFound() {
         // Arrange
-        when(sessionRepository.findById(1L)).thenReturn(Optional.of(new Session()));
-        when(userRepository.findById(1L)).thenReturn(Optional.empty());
+        when(sessionRepository.existsById(1L)).thenReturn(true);
+        when(userRepository.existsById(1L)).thenReturn(false);
         
         // Act + Assert
         assertThatThrownBy(() -> sessionService.participate(1L, 1L))
                 .isInstanceOf(NotFoundException.class);
         
-        verify(sessionRepository, times(1)).findById(1L);
-        verify(userRepository, times(1)).findById(1L);
-        verify(sessionRepository, never()).save(any(Session.class));
+        verify(sessionRepository, times(1)).existsById(1L);
+        verify(userRepository, times(1)).existsById(1L);
+        verify(sessionRepository, never()).addParticipant(anyLong(), anyLong());
     }
 
     @Test
     @DisplayName("participate() with already participating user should throw BadRequestException")
     public void participate_WithAlreadyParticipatingUser_shouldThrowBadRequest() {
         // Arrange
-        User user = new User()
-            .setId(1L).setEmail("test@test.com")
-            .setFirstName("Hugo").setLastName("Lebolide")
-            .setAdmin(false).setPassword("password");
+        when(sessionRepository.existsById(1L)).thenReturn(true);
+        when(userRepository.existsById(1L)).thenReturn(true);
         
-        // User already in session → business rule: cannot participate twice
-        sessionWithId.setUsers(List.of(user));
-        
-        when(sessionRepository.findById(1L)).thenReturn(Optional.of(sessionWithId));
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        // User already in session → the unique (session_id, user_id) constraint rejects the row
+        when(sessionRepository.addParticipant(1L, 1L))
+                .thenThrow(new DataIntegrityViolationException("UK_PARTICIPATE_SESSION_USER"));
         
         // Act + Assert
         assertThatThrownBy(() -> sessionService.participate(1L, 1L))
                 .isInstanceOf(BadRequestException.class);
         
-        verify(sessionRepository, times(1)).findById(1L);
-        verify(userRepository, times(1)).findById(1L);
-        verify(sessionRepository, never()).save(any(Session.class));
+        verify(sessionRepository, times(1)).addParticipant(1L, 1L);
+        // Nothing was written
+        verify(sessionCache, never()).evict(anyLong());
     }
 
     @Test
-    @DisplayName("participate() with valid session and user should add user and save")
-    public void participate_withValidSessionAndUser_shouldAddUserAndSave() {
+    @DisplayName("participate() with valid session and user should insert a single participation without loading the session")
+    public void participate_withValidSessionAndUser_shouldInsertParticipation() {
         // Arrange
-        User user = new User()
-            .setId(1L).setEmail("test@test.com")
-            .setFirstName("Hugo").setLastName("Lebolide")
-            .setAdmin(false).setPassword("password");
-        
-        // Ensure the session initially has no users
-        assertThat(sessionWithId.getUsers()).isEmpty();
-        
-        when(sessionRepository.findById(1L)).thenReturn(Optional.of(sessionWithId));
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(sessionRepository.existsById(1L)).thenReturn(true);
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(sessionRepository.addParticipant(1L, 1L)).thenReturn(1);
         
         // Act
         sessionService.participate(1L, 1L);
         
         // Assert
-        // Capture the session actually passed to save()
-        ArgumentCaptor<Session> sessionCaptor = ArgumentCaptor.forClass(Session.class);
-        verify(sessionRepository, times(1)).save(sessionCaptor.capture());
-        Session savedSession = sessionCaptor.getValue();
-        
-        assertThat(savedSession.getUsers()).contains(user);
-        verify(sessionRepository, times(1)).findById(1L);
-        verify(userRepository, times(1)).findById(1L);
+        verify(sessionRepository, times(1)).addParticipant(1L, 1L);
+        verify(sessionRepository, never()).findWithUsersById(anyLong());
+        verify(sessionRepository, never()).save(any(Session.class));
+        verify(sessionCache, times(1)).evict(1L);
     }
 
     // ****** NO LONGER PARTICIPATE ******
@@ -269,60 +424,47 @@ public class SessionServiceTest {
     @DisplayName("noLongerParticipate() with missing session should throw NotFoundException")
     public void noLongerParticipate_withMissingSession_shouldThrowNotFound() {
         // Arrange
-        when(sessionRepository.findById(1L)).thenReturn(Optional.empty());
+        when(sessionRepository.removeParticipant(1L, 1L)).thenReturn(0);
+        when(sessionRepository.existsById(1L)).thenReturn(false);
         
         // Act + Assert
         assertThatThrownBy(() -> sessionService.noLongerParticipate(1L, 1L))
                 .isInstanceOf(NotFoundException.class);
         
-        verify(sessionRepository, times(1)).findById(1L);
-        verify(sessionRepository, never()).save(any(Session.class));
+        verify(sessionRepository, times(1)).existsById(1L);
     }
 
     @Test
     @DisplayName("noLongerParticipate() with user not participating should throw BadRequestException")
     public void noLongerParticipate_withUserNotParticipating_shouldThrowBadRequest() {
         // Arrange
-        when(sessionRepository.findById(1L)).thenReturn(Optional.of(sessionWithId));
-        
-        // User not in session → business rule: cannot remove a non-participant
+        // User not in session → nothing deleted, business rule: cannot remove a non-participant
+        when(sessionRepository.removeParticipant(1L, 1L)).thenReturn(0);
+        when(sessionRepository.existsById(1L)).thenReturn(true);
         
         // Act + Assert
         assertThatThrownBy(() -> sessionService.noLongerParticipate(1L, 1L))
                 .isInstanceOf(BadRequestException.class);
         
-        verify(sessionRepository, times(1)).findById(1L);
-        verify(sessionRepository, never()).save(any(Session.class));
+        verify(sessionRepository, times(1)).existsById(1L);
+        verify(sessionCache, never()).evict(anyLong());
     }
 
     @Test
-    @DisplayName("noLongerParticipate() with valid session and user should remove user and save")
-    public void noLongerParticipate_withValidSessionAndUser_shouldRemoveUserAndSave() {
+    @DisplayName("noLongerParticipate() with valid session and user should delete the single participation")
+    public void noLongerParticipate_withValidSessionAndUser_shouldDeleteParticipation() {
         // Arrange
-        User user = new User()
-            .setId(1L).setEmail("test@test.com")
-            .setFirstName("Hugo").setLastName("Lebolide")
-            .setAdmin(false).setPassword("password");
-        
-        User user2 = new User()
-            .setId(2L).setEmail("test2@test.com")
-            .setFirstName("Sam").setLastName("Lechasseur")
-            .setAdmin(false).setPassword("password");
-        
-        sessionWithId.setUsers(new ArrayList<>(List.of(user, user2)));
-        
-        when(sessionRepository.findById(1L)).thenReturn(Optional.of(sessionWithId));
+        when(sessionRepository.removeParticipant(1L, 1L)).thenReturn(1);
         
         // Act
         sessionService.noLongerParticipate(1L, 1L);
         
         // Assert
-        // Capture the session actually passed to save()
-        ArgumentCaptor<Session> sessionCaptor = ArgumentCaptor.forClass(Session.class);
-        verify(sessionRepository, times(1)).save(sessionCaptor.capture());
-        Session savedSession = sessionCaptor.getValue();
-        
-        assertThat(savedSession.getUsers()).doesNotContain(user);
-        verify(sessionRepository, times(1)).findById(1L);
+        verify(sessionRepository, times(1)).removeParticipant(1L, 1L);
+        // No existence check nor session load on the happy path
+        verify(sessionRepository, never()).existsById(anyLong());
+        verify(sessionRepository, never()).findWithUsersById(anyLong());
+        verify(sessionRepository, never()).save(any(Session.class));
+        verify(sessionCache, times(1)).evict(1L);
     }
-}
\ No newline at end of file
+}
@@ -1,6 +1,7 @@
 package com.openclassrooms.starterjwt.services;
 
 import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 import java.util.List;
@@ -14,7 +15,9 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
 
+import com.openclassrooms.starterjwt.cache.TeacherCatalog;
 import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.repository.TeacherRepository;
 
@@ -51,35 +54,53 @@ public class TeacherServiceTest {
     @DisplayName("findAll() should return all teachers")
     public void findAll_shouldReturnAllTeachers() {
         // Arrange
-        when(teacherRepository.findAll()).thenReturn(teacherList);
+        when(teacherRepository.findAll(any(Sort.class))).thenReturn(teacherList);
         
         // Act
         List<Teacher> foundAllTeachers = teacherService.findAll();
         
         // Assert
         assertThat(foundAllTeachers).isEqualTo(teacherList);
-        verify(teacherRepository, times(1)).findAll();
+        verify(teacherRepository, times(1)).findAll(Sort.by("id"));
+    }
+
+    @Test
+    @DisplayName("findAll() called again should be served from the catalog without querying the repository")
+    public void findAll_twice_shouldLoadCatalogOnce() {
+        // Arrange
+        when(teacherRepository.findAll(any(Sort.class))).thenReturn(teacherList);
+        
+        // Act
+        List<Teacher> first = teacherService.findAll();
+        List<Teacher> second = teacherService.findAll();
+        
+        // Assert
+        assertThat(second).isSameAs(first);
+        verify(teacherRepository, times(1)).findAll(any(Sort.class));
+        assertThatThrownBy(() -> second.add(teacher))
+                .isInstanceOf(UnsupportedOperationException.class);
     }
 
     // ***** FIND BY ID *****
     @Test
-    @DisplayName("findById() with existing id should return teacher")
+    @DisplayName("findById() with existing id should return teacher from the catalog")
     public void findById_withExistingId_shouldReturnTeacher() {
         // Arrange
-        when(teacherRepository.findById(1L)).thenReturn(Optional.of(teacher));
+        when(teacherRepository.findAll(any(Sort.class))).thenReturn(teacherList);
         
         // Act
         Teacher foundTeacher = teacherService.findById(1L);
         
         // Assert
         assertThat(foundTeacher).isEqualTo(teacher);
-        verify(teacherRepository, times(1)).findById(1L);
+        verify(teacherRepository, never()).findById(anyLong());
     }
 
     @Test
     @DisplayName("findById() with unknown id should return null")
     public void findById_withUnknownId_shouldReturnNull() {
         // Arrange
+        when(teacherRepository.findAll(any(Sort.class))).thenReturn(teacherList);
         when(teacherRepository.findById(99L)).thenReturn(Optional.empty());
         
         // Act
@@ -88,5 +109,67 @@ public class TeacherServiceTest {
         // Assert
         assertThat(foundTeacher).isNull();
         verify(teacherRepository, times(1)).findById(99L);
+        // Nothing new: no reload
+        verify(teacherRepository, times(1)).findAll(any(Sort.class));
+    }
+
+    @Test
+    @DisplayName("findById() with a teacher added since the last load should return it and reload the catalog")
+    public void findById_withTeacherAddedSinceLoad_shouldReturnTeacherAndReload() {
+        // Arrange
+        Teacher teacher3 = new Teacher().setId(3L).setFirstName("Lou").setLastName("Tus");
+        when(teacherRepository.findAll(any(Sort.class)))
+                .thenReturn(teacherList)
+                .thenReturn(List.of(teacher, teacher2, teacher3));
+        when(teacherRepository.findById(3L)).thenReturn(Optional.of(teacher3));
+        
+        // Act
+        Teacher foundTeacher = teacherService.findById(3L);
+        
+        // Assert
+        assertThat(foundTeacher).isEqualTo(teacher3);
+        assertThat(teacherService.findAll()).containsExactly(teacher, teacher2, teacher3);
+        assertThat(teacherService.getCatalog().getGeneration()).isEqualTo(2);
+    }
+
+    // ***** RELOAD *****
+    @Test
+    @DisplayName("reload() with unchanged teachers should keep the same catalog and generation")
+    public void reload_withUnchangedTeachers_shouldKeepCatalog() {
+        // Arrange
+        when(teacherRepository.findAll(any(Sort.class)))
+                .thenReturn(teacherList)
+                .thenReturn(List.of(
+                    new Teacher().setId(1L).setFirstName("Maya").setLastName("Labeille"),
+                    new Teacher().setId(2L).setFirstName("Bob").setLastName("Léponge")));
+        TeacherCatalog before = teacherService.getCatalog();
+        
+        // Act
+        teacherService.reload();
+        
+        // Assert
+        assertThat(teacherService.getCatalog()).isSameAs(before);
+        assertThat(before.getGeneration()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("reload() with a modified teacher should swap in the next generation")
+    public void reload_withModifiedTeacher_shouldSwapCatalog() {
+        // Arrange
+        Teacher renamed = new Teacher().setId(2L).setFirstName("Bob").setLastName("Carré");
+        when(teacherRepository.findAll(any(Sort.class)))
+                .thenReturn(teacherList)
+                .thenReturn(List.of(teacher, renamed));
+        TeacherCatalog before = teacherService.getCatalog();
+        
+        // Act
+        teacherService.reload();
+        
+        // Assert
+        TeacherCatalog after = teacherService.getCatalog();
+        assertThat(after.getGeneration()).isEqualTo(before.getGeneration() + 1);
+        assertThat(teacherService.findById(2L).getLastName()).isEqualTo("Carré");
+        // Readers still holding the previous catalog are not affected
+        assertThat(before.get(2L).getLastName()).isEqualTo("Léponge");
     }
 }
@@ -3,7 +3,9 @@ package com.openclassrooms.starterjwt.services;
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -14,12 +16,18 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.services.TokenRevocations;
+import com.openclassrooms.starterjwt.security.services.UserDetailsCache;
 
 @ExtendWith(MockitoExtension.class)
 @DisplayName("UserService Test")
 public class UserServiceTest {
     @Mock
     private UserRepository userRepository;
+    @Mock
+    private TokenRevocations tokenRevocations;
+    @Mock
+    private UserDetailsCache userDetailsCache;
     
     @InjectMocks
     private UserService userService;
@@ -33,6 +41,8 @@ public class UserServiceTest {
         
         // Assert
         verify(userRepository, times(1)).deleteById(1L);
+        verify(tokenRevocations, times(1)).revokeUser(1L);
+        verify(userDetailsCache, times(1)).evictUser(1L);
     }
 
     // ***** FIND BY ID *****
@@ -68,4 +78,23 @@ public class UserServiceTest {
         assertThat(foundUser).isNull();
         verify(userRepository, times(1)).findById(99L);
     }
+
+    // ***** FIND ALL BY ID *****
+    @Test
+    @DisplayName("findAllById() should load every requested user in one repository call")
+    public void findAllById_shouldCallRepositoryOnce() {
+        // Arrange
+        User user1 = new User().setId(1L);
+        User user2 = new User().setId(2L);
+        Set<Long> ids = Set.of(1L, 2L);
+        
+        when(userRepository.findAllById(ids)).thenReturn(List.of(user1, user2));
+        
+        // Act
+        List<User> foundUsers = userService.findAllById(ids);
+        
+        // Assert
+        assertThat(foundUsers).containsExactly(user1, user2);
+        verify(userRepository, times(1)).findAllById(ids);
+    }
 }
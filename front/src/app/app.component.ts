@@ -22,6 +22,8 @@ export class AppComponent {
   }
 
   public logout(): void {
+    // Revokes the tokens server side; the session is left right away whatever the answer
+    this.authService.logout(this.sessionService.sessionInformation?.refreshToken).subscribe({ error: () => {} });
     this.sessionService.logOut();
     this.router.navigate([''])
   }
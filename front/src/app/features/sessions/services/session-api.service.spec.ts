@@ -1,7 +1,9 @@
 import { HttpClientModule } from '@angular/common/http';
+import { HttpClientTestingModule, HttpTestingController } from '@angular/common/http/testing';
 import { TestBed } from '@angular/core/testing';
 import { expect } from '@jest/globals';
 
+import { Session } from '../interfaces/session.interface';
 import { SessionApiService } from './session-api.service';
 
 describe('SessionsService', () => {
@@ -20,3 +22,34 @@ describe('SessionsService', () => {
     expect(service).toBeTruthy();
   });
 });
+
+describe('SessionsService paging', () => {
+  let service: SessionApiService;
+  let httpMock: HttpTestingController;
+
+  beforeEach(() => {
+    TestBed.configureTestingModule({
+      imports: [HttpClientTestingModule]
+    });
+    service = TestBed.inject(SessionApiService);
+    httpMock = TestBed.inject(HttpTestingController);
+  });
+
+  afterEach(() => {
+    httpMock.verify();
+  });
+
+  it('should follow X-Next-Cursor until the last page', () => {
+    const session = (id: number) => ({ id, name: 'Yoga', description: 'desc', date: new Date(), teacher_id: 1, users: [] } as Session);
+    let sessions: Session[] = [];
+
+    service.all().subscribe((all) => sessions = all);
+
+    const first = httpMock.expectOne((req) => req.url === 'api/session' && !req.params.has('after'));
+    first.flush([session(1), session(2)], { headers: { 'X-Next-Cursor': 'cursor-2' } });
+    const last = httpMock.expectOne((req) => req.url === 'api/session' && req.params.get('after') === 'cursor-2');
+    last.flush([session(3)]);
+
+    expect(sessions.map((s) => s.id)).toEqual([1, 2, 3]);
+  });
+});
@@ -1,6 +1,7 @@
-import { HttpClient } from '@angular/common/http';
+import { HttpClient, HttpParams, HttpResponse } from '@angular/common/http';
 import { Injectable } from '@angular/core';
-import { Observable } from 'rxjs';
+import { EMPTY, Observable } from 'rxjs';
+import { expand, reduce } from 'rxjs/operators';
 import { Session } from '../interfaces/session.interface';
 
 @Injectable({
@@ -9,12 +10,28 @@ import { Session } from '../interfaces/session.interface';
 export class SessionApiService {
 
   private pathService = 'api/session';
+  private nextCursorHeader = 'X-Next-Cursor';
 
   constructor(private httpClient: HttpClient) {
   }
 
+  /**
+   * Every session: the API answers one page at a time, so the X-Next-Cursor header
+   * of each page is followed until the last one.
+   */
   public all(): Observable<Session[]> {
-    return this.httpClient.get<Session[]>(this.pathService);
+    return this.page(null).pipe(
+      expand((response) => {
+        const next = response.headers.get(this.nextCursorHeader);
+        return next ? this.page(next) : EMPTY;
+      }),
+      reduce((sessions: Session[], response) => sessions.concat(response.body ?? []), [])
+    );
+  }
+
+  private page(after: string | null): Observable<HttpResponse<Session[]>> {
+    const params = after ? new HttpParams().set('after', after) : new HttpParams();
+    return this.httpClient.get<Session[]>(this.pathService, { params, observe: 'response' });
   }
 
   public detail(id: string): Observable<Session> {
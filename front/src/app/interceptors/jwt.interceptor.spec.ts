@@ -0,0 +1,102 @@
+import { HTTP_INTERCEPTORS, HttpClient } from '@angular/common/http';
+import { HttpClientTestingModule, HttpTestingController } from '@angular/common/http/testing';
+import { TestBed } from '@angular/core/testing';
+import { expect } from '@jest/globals';
+
+import { SessionInformation } from '../interfaces/sessionInformation.interface';
+import { SessionService } from '../services/session.service';
+import { JwtInterceptor } from './jwt.interceptor';
+
+describe('JwtInterceptor', () => {
+  let http: HttpClient;
+  let httpMock: HttpTestingController;
+  let sessionService: SessionService;
+
+  // Only the exp claim is read by the interceptor
+  const jwt = (name: string, expiresInMs: number) =>
+    `header.${btoa(JSON.stringify({ sub: name, exp: Math.floor((Date.now() + expiresInMs) / 1000) }))}.signature`;
+  const oldToken = jwt('old', 3_600_000);
+  const newToken = jwt('new', 3_600_000);
+  const user = (token: string, refreshToken: string): SessionInformation =>
+    ({ id: 1, token, type: 'Bearer', username: 'yoga@studio.com', firstName: 'Admin', lastName: 'Admin', admin: true, refreshToken });
+
+  beforeEach(() => {
+    TestBed.configureTestingModule({
+      imports: [HttpClientTestingModule],
+      providers: [{ provide: HTTP_INTERCEPTORS, useClass: JwtInterceptor, multi: true }],
+    });
+    http = TestBed.inject(HttpClient);
+    httpMock = TestBed.inject(HttpTestingController);
+    sessionService = TestBed.inject(SessionService);
+  });
+
+  afterEach(() => {
+    httpMock.verify();
+  });
+
+  it('should send the access token', () => {
+    sessionService.logIn(user(oldToken, 'refresh-1'));
+
+    http.get('api/session').subscribe();
+
+    const req = httpMock.expectOne('api/session');
+    expect(req.request.headers.get('Authorization')).toBe(`Bearer ${oldToken}`);
+    req.flush([]);
+  });
+
+  it('should refresh on 401, retry once and keep the rotated refresh token', () => {
+    sessionService.logIn(user(oldToken, 'refresh-1'));
+    let body: unknown;
+
+    http.get('api/session').subscribe((response) => body = response);
+
+    httpMock.expectOne('api/session').flush(null, { status: 401, statusText: 'Unauthorized' });
+    const refresh = httpMock.expectOne('api/auth/refresh');
+    expect(refresh.request.body).toEqual({ refreshToken: 'refresh-1' });
+    refresh.flush(user(newToken, 'refresh-2'));
+    const retry = httpMock.expectOne('api/session');
+    expect(retry.request.headers.get('Authorization')).toBe(`Bearer ${newToken}`);
+    retry.flush([]);
+
+    expect(body).toEqual([]);
+    expect(sessionService.sessionInformation?.refreshToken).toBe('refresh-2');
+    expect(sessionService.isLogged).toBe(true);
+  });
+
+  it('should share one refresh between concurrent 401s', () => {
+    sessionService.logIn(user(oldToken, 'refresh-1'));
+
+    http.get('api/session').subscribe();
+    http.get('api/teacher').subscribe();
+
+    httpMock.expectOne('api/session').flush(null, { status: 401, statusText: 'Unauthorized' });
+    httpMock.expectOne('api/teacher').flush(null, { status: 401, statusText: 'Unauthorized' });
+    httpMock.expectOne('api/auth/refresh').flush(user(newToken, 'refresh-2'));
+    httpMock.expectOne('api/session').flush([]);
+    httpMock.expectOne('api/teacher').flush([]);
+  });
+
+  it('should refresh before sending when the access token is about to expire', () => {
+    sessionService.logIn(user(jwt('old', 5_000), 'refresh-1'));
+
+    http.get('api/session').subscribe();
+
+    httpMock.expectOne('api/auth/refresh').flush(user(newToken, 'refresh-2'));
+    const req = httpMock.expectOne('api/session');
+    expect(req.request.headers.get('Authorization')).toBe(`Bearer ${newToken}`);
+    req.flush([]);
+  });
+
+  it('should log out when the refresh token is refused', () => {
+    sessionService.logIn(user(oldToken, 'refresh-1'));
+    let status: number | undefined;
+
+    http.get('api/session').subscribe({ error: (error) => status = error.status });
+
+    httpMock.expectOne('api/session').flush(null, { status: 401, statusText: 'Unauthorized' });
+    httpMock.expectOne('api/auth/refresh').flush(null, { status: 401, statusText: 'Unauthorized' });
+
+    expect(status).toBe(401);
+    expect(sessionService.isLogged).toBe(false);
+  });
+});
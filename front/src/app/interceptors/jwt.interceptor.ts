@@ -1,19 +1,90 @@
-import { HttpHandler, HttpInterceptor, HttpRequest } from "@angular/common/http";
+import { HttpErrorResponse, HttpEvent, HttpHandler, HttpInterceptor, HttpRequest, HttpResponse } from "@angular/common/http";
 import { Injectable } from "@angular/core";
+import { Observable, of, throwError } from 'rxjs';
+import { catchError, filter, finalize, map, shareReplay, switchMap, tap } from 'rxjs/operators';
+import { SessionInformation } from '../interfaces/sessionInformation.interface';
 import { SessionService } from '../services/session.service';
 
+const AUTH_PATH = 'api/auth/';
+const REFRESH_PATH = `${AUTH_PATH}refresh`;
+// Renew a little before the access token expires rather than losing a request to it
+const EXPIRY_MARGIN_MS = 30_000;
+
+/**
+ * Sends the access token and keeps it alive with the refresh token: it is renewed shortly before
+ * it expires, or after a 401, and the request is then retried once with the new one.
+ */
 @Injectable({ providedIn: 'root' })
 export class JwtInterceptor implements HttpInterceptor {
+  // Refresh tokens are single use: concurrent requests share the same rotation
+  private refreshing$: Observable<SessionInformation> | null = null;
+
   constructor(private sessionService: SessionService) {}
 
-  public intercept(request: HttpRequest<any>, next: HttpHandler) {
-    if (this.sessionService.isLogged) {
-      request = request.clone({
-        setHeaders: {
-          Authorization: `Bearer ${this.sessionService.sessionInformation!.token}`,
-        },
-      });
+  public intercept(request: HttpRequest<any>, next: HttpHandler): Observable<HttpEvent<any>> {
+    if (!this.sessionService.isLogged) {
+      return next.handle(request);
+    }
+    if (request.url.startsWith(AUTH_PATH)) {
+      return next.handle(this.authorize(request, this.sessionService.sessionInformation!));
     }
-    return next.handle(request);
+
+    const current = this.sessionService.sessionInformation!;
+    const session$ = current.refreshToken && expiresWithin(current.token, EXPIRY_MARGIN_MS)
+      ? this.refresh(next)
+      : of(current);
+
+    return session$.pipe(
+      switchMap((session) => next.handle(this.authorize(request, session)).pipe(
+        catchError((error) => this.retryUnauthorized(error, request, next, session)))),
+    );
+  }
+
+  private retryUnauthorized(error: unknown, request: HttpRequest<any>, next: HttpHandler,
+                            sent: SessionInformation): Observable<HttpEvent<any>> {
+    const current = this.sessionService.sessionInformation;
+    if (!(error instanceof HttpErrorResponse) || error.status !== 401 || !current?.refreshToken) {
+      return throwError(() => error);
+    }
+
+    // Another request may already have renewed the token this one was sent with
+    const session$ = current.token !== sent.token ? of(current) : this.refresh(next);
+    return session$.pipe(switchMap((session) => next.handle(this.authorize(request, session))));
+  }
+
+  private refresh(next: HttpHandler): Observable<SessionInformation> {
+    if (!this.refreshing$) {
+      const body = { refreshToken: this.sessionService.sessionInformation!.refreshToken };
+      this.refreshing$ = next.handle(new HttpRequest<{ refreshToken?: string }>('POST', REFRESH_PATH, body)).pipe(
+        filter((event): event is HttpResponse<SessionInformation> => event instanceof HttpResponse),
+        map((response) => response.body!),
+        tap({
+          next: (session) => this.sessionService.renew(session),
+          // Refresh token expired, revoked or reused: the user has to log in again
+          error: () => this.sessionService.logOut(),
+        }),
+        finalize(() => this.refreshing$ = null),
+        shareReplay(1),
+      );
+    }
+    return this.refreshing$;
+  }
+
+  private authorize(request: HttpRequest<any>, session: SessionInformation): HttpRequest<any> {
+    return request.clone({
+      setHeaders: {
+        Authorization: `Bearer ${session.token}`,
+      },
+    });
+  }
+}
+
+function expiresWithin(token: string, marginMs: number): boolean {
+  try {
+    const payload = JSON.parse(atob(token.split('.')[1].replace(/-/g, '+').replace(/_/g, '/')));
+    return typeof payload.exp === 'number' && payload.exp * 1000 - Date.now() < marginMs;
+  } catch {
+    // Not a JWT we can read: let the server answer, a 401 still triggers the refresh
+    return false;
   }
 }
@@ -22,6 +22,11 @@ export class SessionService {
     this.next();
   }
 
+  // The access token was renewed: same user, still logged in, nothing to emit
+  public renew(user: SessionInformation): void {
+    this.sessionInformation = user;
+  }
+
   public logOut(): void {
     this.sessionInformation = undefined;
     this.isLogged = false;
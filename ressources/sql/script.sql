@@ -32,9 +32,38 @@ CREATE TABLE `PARTICIPATE` (
   `session_id` INT
 );
 
+CREATE TABLE `REVOKED_TOKENS` (
+  `id` INT PRIMARY KEY AUTO_INCREMENT,
+  `token_id` VARCHAR(64),
+  `user_id` INT,
+  `revoked_at` TIMESTAMP NOT NULL,
+  `expires_at` TIMESTAMP NOT NULL
+);
+
+CREATE TABLE `REFRESH_TOKENS` (
+  `id` INT PRIMARY KEY AUTO_INCREMENT,
+  `token_hash` VARCHAR(64) NOT NULL,
+  `family_id` VARCHAR(36) NOT NULL,
+  `user_id` INT NOT NULL,
+  `created_at` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  `expires_at` TIMESTAMP NOT NULL,
+  `used_at` TIMESTAMP NULL,
+  `revoked` BOOLEAN NOT NULL DEFAULT false
+);
+
 ALTER TABLE `SESSIONS` ADD FOREIGN KEY (`teacher_id`) REFERENCES `TEACHERS` (`id`);
 ALTER TABLE `PARTICIPATE` ADD FOREIGN KEY (`user_id`) REFERENCES `USERS` (`id`);
 ALTER TABLE `PARTICIPATE` ADD FOREIGN KEY (`session_id`) REFERENCES `SESSIONS` (`id`);
+ALTER TABLE `PARTICIPATE` ADD CONSTRAINT `UK_PARTICIPATE_SESSION_USER` UNIQUE (`session_id`, `user_id`);
+ALTER TABLE `USERS` ADD CONSTRAINT `UK_USERS_EMAIL` UNIQUE (`email`);
+
+CREATE INDEX `IDX_SESSIONS_DATE` ON `SESSIONS` (`date`);
+CREATE INDEX `IDX_SESSIONS_TEACHER_DATE` ON `SESSIONS` (`teacher_id`, `date`);
+CREATE INDEX `IDX_REVOKED_TOKENS_EXPIRES_AT` ON `REVOKED_TOKENS` (`expires_at`);
+
+ALTER TABLE `REFRESH_TOKENS` ADD CONSTRAINT `UK_REFRESH_TOKENS_HASH` UNIQUE (`token_hash`);
+CREATE INDEX `IDX_REFRESH_TOKENS_FAMILY` ON `REFRESH_TOKENS` (`family_id`);
+CREATE INDEX `IDX_REFRESH_TOKENS_EXPIRES_AT` ON `REFRESH_TOKENS` (`expires_at`);
 
 INSERT INTO TEACHERS (first_name, last_name)
 VALUES ('Margot', 'DELAHAYE'),